@@ -0,0 +1,61 @@
+import java.util.*;
+
+/**
+ * Actor graph with dense int ids, which the path tree, rankings and indexes run over
+ * Implemented by the co-star graph, CompactGraph, and the actor to movie graph, BipartiteGraph, which answer every query the same way
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public interface ActorGraph extends Graph<String, Set<String>> {
+    /**
+     * @param v actor name
+     * @return the dense id of v, or -1 if v isn't in the graph
+     */
+    int indexOf(String v);
+
+    /**
+     * @param v actor name
+     * @return the dense id of v
+     * @throws IllegalArgumentException if v isn't in the graph, so every query on an unknown actor fails the same way
+     */
+    default int id(String v){
+        int id = indexOf(v);
+        if (id < 0){
+            throw new IllegalArgumentException("unknown vertex " + v);
+        }
+        return id;
+    }
+
+    /**
+     * @param id dense actor id
+     * @return the actor name with that id
+     */
+    String name(int id);
+
+    /**
+     * bfs over co-stars into reusable arrays, discovering each vertex's co-stars in id order
+     * @param source id of the vertex to find shortest paths from
+     * @param dist filled with each vertex's distance from source, -1 if unreachable
+     * @param parent filled with the vertex each one was discovered from, -1 for source and unreachable vertices
+     * @param queue scratch space of at least numVertices() ints, holding the reached vertices in order afterwards
+     * @return the number of vertices reached, including source
+     */
+    int bfs(int source, int[] dist, int[] parent, int[] queue);
+
+    /**
+     * @param u actor id
+     * @param v actor id
+     * @return the titles of the movies both actors were in, empty if there are none
+     */
+    Set<String> sharedMovies(int u, int v);
+
+    /**
+     * @return a new array of each actor's number of distinct co-stars, by id
+     */
+    int[] degrees();
+
+    /**
+     * @return the rankings and indexes built over this graph, kept with it so they go when it does
+     */
+    GraphIndexes indexes();
+}
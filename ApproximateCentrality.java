@@ -0,0 +1,166 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Estimates every actor's average separation from bfs runs out of a sample of pivot actors, for graphs too big for one bfs per actor
+ * Each big component gets pivots in proportion to its size, and an actor's estimate is its mean distance to the pivots,
+ * with a 95% confidence interval from the spread of those distances; small components are always done exactly
+ * The actors at both ends of the estimated ranking can then be refined with an exact bfs each, so c stays near correct
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public class ApproximateCentrality {
+    // default number of pivots across the whole graph, and actors refined exactly at each end of the ranking
+    public static final int DEFAULT_PIVOTS = 256;
+    public static final int DEFAULT_REFINE = 32;
+
+    // components up to this size are worked out exactly, and bigger ones get at least this many pivots
+    private static final int SMALL = 64;
+
+    // z score of a 95% confidence interval
+    private static final double Z = 1.96;
+
+    /**
+     *
+     * @param graph actor graph to rank
+     * @param pivots about how many pivots to sample across the graph
+     * @param refine how many actors at each end of the ranking to compute exactly
+     * @param seed seed for choosing the pivots, so an estimate can be repeated
+     * @return a table of estimated averages, each with the half width of its 95% confidence interval
+     */
+    public static CentralityTable estimate(ActorGraph graph, int pivots, int refine, long seed){
+        int n = graph.numVertices();
+        ComponentIndex components = graph.indexes().components();
+        double[] averages = new double[n];
+        double[] errors = new double[n];
+        int[] reached = new int[n];
+        for (int v = 0; v < n; v++){
+            reached[v] = components.componentSize(v);
+        }
+
+        // groups the actors by component with a counting sort
+        int[] start = new int[components.numComponents() + 1];
+        for (int v = 0; v < n; v++){
+            start[components.component(v) + 1]++;
+        }
+        for (int c = 0; c < components.numComponents(); c++){
+            start[c + 1] += start[c];
+        }
+        int[] members = new int[n];
+        int[] fill = Arrays.copyOf(start, components.numComponents());
+        for (int v = 0; v < n; v++){
+            members[fill[components.component(v)]++] = v;
+        }
+
+        // pivots are shared out among the actors that have co-stars
+        int connected = 0;
+        for (int v = 0; v < n; v++){
+            connected += reached[v] > 1 ? 1 : 0;
+        }
+        Random random = new Random(seed);
+        List<Integer> sampled = new ArrayList<>();
+        for (int c = 0; c < components.numComponents(); c++){
+            int size = start[c + 1] - start[c];
+            if (size == 1){
+                averages[members[start[c]]] = Double.NaN;
+            }
+            else if (size <= SMALL){
+                exactSmall(graph, Arrays.copyOfRange(members, start[c], start[c + 1]), averages);
+            }
+            else {
+                // a partial shuffle of the component picks its pivots without repeats
+                int k = Math.min(size, Math.max(SMALL, (int) Math.round((double) pivots * size / connected)));
+                for (int i = 0; i < k; i++){
+                    int j = start[c] + i + random.nextInt(size - i);
+                    int swap = members[start[c] + i];
+                    members[start[c] + i] = members[j];
+                    members[j] = swap;
+                    sampled.add(members[start[c] + i]);
+                }
+            }
+        }
+
+        // adds up each actor's distances to the pivots of its component, a round of pivots at a time across cores
+        long[] sums = new long[n];
+        long[] squares = new long[n];
+        int[] counts = new int[n];
+        int round = Math.max(1, Math.min(ForkJoinPool.commonPool().getParallelism(), sampled.size()));
+        int[][] dists = new int[round][n];
+        int[][] parents = new int[round][n];
+        int[][] queues = new int[round][n];
+        int[] lengths = new int[round];
+        for (int first = 0; first < sampled.size(); first += round){
+            int batch = Math.min(round, sampled.size() - first);
+            int offset = first;
+            IntStream.range(0, batch).parallel().forEach(i ->
+                    lengths[i] = graph.bfs(sampled.get(offset + i), dists[i], parents[i], queues[i]));
+            for (int i = 0; i < batch; i++){
+                int pivot = sampled.get(first + i);
+                for (int q = 0; q < lengths[i]; q++){
+                    int v = queues[i][q];
+                    if (v != pivot){
+                        long d = dists[i][v];
+                        sums[v] += d;
+                        squares[v] += d * d;
+                        counts[v]++;
+                    }
+                }
+            }
+        }
+        for (int v = 0; v < n; v++){
+            if (reached[v] > SMALL){
+                averages[v] = (double) sums[v] / counts[v];
+                errors[v] = bound(sums[v], squares[v], counts[v], reached[v] - 1);
+            }
+        }
+
+        // settles the candidates at both ends exactly, so the first few of c at either end are right
+        CentralityTable table = new CentralityTable(graph, averages, reached, errors);
+        Set<String> candidates = new LinkedHashSet<>(table.lowest(refine));
+        candidates.addAll(table.highest(refine));
+        int[] dist = dists[0];
+        for (String actor : candidates){
+            int v = graph.indexOf(actor);
+            if (errors[v] > 0){
+                graph.bfs(v, dist, parents[0], queues[0]);
+                averages[v] = GraphLibrary.averageSeparation(dist, n);
+                errors[v] = 0;
+            }
+        }
+        return new CentralityTable(graph, averages, reached, errors);
+    }
+
+    // half width of a 95% interval for a mean of count samples drawn without replacement from population others
+    private static double bound(long sum, long squares, int count, int others){
+        if (count >= others){
+            return 0;
+        }
+        double mean = (double) sum / count;
+        double variance = count > 1 ? Math.max(0, (squares - count * mean * mean) / (count - 1)) : mean * mean;
+        double correction = others > 1 ? (double) (others - count) / (others - 1) : 0;
+        return Z * Math.sqrt(variance / count * correction);
+    }
+
+    // exact average separations in a small component, walking co-stars by name so only the component is touched
+    private static void exactSmall(ActorGraph graph, int[] members, double[] averages){
+        for (int source : members){
+            Map<String, Integer> dist = new HashMap<>();
+            Deque<String> queue = new ArrayDeque<>();
+            dist.put(graph.name(source), 0);
+            queue.add(graph.name(source));
+            double total = 0;
+            while (!queue.isEmpty()){
+                String u = queue.remove();
+                for (String v : graph.outNeighbors(u)){
+                    if (!dist.containsKey(v)){
+                        dist.put(v, dist.get(u) + 1);
+                        total += dist.get(u) + 1;
+                        queue.add(v);
+                    }
+                }
+            }
+            averages[source] = total / (members.length - 1);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs a file of game commands without the prompt, writing each answer as a line of JSON
+ * Commands are grouped by the center they run against, so each distinct center costs one bfs however many queries it has,
+ * and the groups run in parallel, each answer written out as soon as it's ready
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public class BaconBatch {
+    // loaded game whose graph every group shares
+    private final BaconGame game;
+
+    // threads the groups run on
+    private final int threads;
+
+    /**
+     * one command of the batch and the center it runs against
+     */
+    private static class Query {
+        final int number;
+        final String line;
+        // whether this is the u that moved the batch onto its center
+        final boolean arrives;
+
+        Query(int number, String line, boolean arrives){
+            this.number = number;
+            this.line = line;
+            this.arrives = arrives;
+        }
+    }
+
+    /**
+     *
+     * @param game game with its graph built, whose center the batch starts at
+     * @param threads number of groups to run at once
+     */
+    public BaconBatch(BaconGame game, int threads){
+        this.game = game;
+        this.threads = threads;
+    }
+
+    /**
+     * reads commands until q or the end of input, then answers them all
+     * u changes the center for the commands after it, as at the prompt, and is answered like the rest
+     * Each answer is a JSON object with the command's line number, center, text and output,
+     * where output is exactly what the prompt would have printed, and answers of different centers can come out of order
+     * A command that fails gets an error field with the exception in place of output, and the rest of the batch carries on
+     * @param commands commands, one per line
+     * @param results where the JSON lines are written
+     * @throws IOException if the commands can't be read or the results can't be written
+     * @throws InterruptedException if the batch is interrupted while groups are running
+     */
+    public void run(Reader commands, Writer results) throws IOException, InterruptedException {
+        // groups the commands by center, in order of first appearance
+        Map<String, List<Query>> groups = new LinkedHashMap<>();
+        String center = game.center;
+        BufferedReader in = new BufferedReader(commands);
+        String line;
+        int number = 0;
+        while ((line = in.readLine()) != null && !line.equals("q")){
+            number++;
+            if (line.isEmpty()){
+                continue;
+            }
+            String[] lineSplit = line.split(" ");
+            // a valid switch of center belongs to the new center's group, where its banner is printed
+            boolean arrives = false;
+            if (lineSplit[0].equals("u")){
+                String actor = String.join(" ", Arrays.copyOfRange(lineSplit, 1, lineSplit.length));
+                if (game.graph.hasVertex(actor) && !actor.equals(center)){
+                    center = actor;
+                    arrives = true;
+                }
+            }
+            if (!groups.containsKey(center)){
+                groups.put(center, new ArrayList<>());
+            }
+            groups.get(center).add(new Query(number, line, arrives));
+        }
+
+        BufferedWriter out = new BufferedWriter(results);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> running = new ArrayList<>();
+        for (Map.Entry<String, List<Query>> group : groups.entrySet()){
+            running.add(pool.submit(() -> {
+                answer(group.getKey(), group.getValue(), out);
+                return null;
+            }));
+        }
+        pool.shutdown();
+        try{
+            for (Future<?> group : running){
+                group.get();
+            }
+        }
+        catch(ExecutionException e){
+            if (e.getCause() instanceof IOException){
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        out.flush();
+    }
+
+    // answers one center's commands in a session of its own, writing each answer out as soon as it's ready
+    private void answer(String center, List<Query> queries, BufferedWriter out) throws IOException {
+        BaconGame session = game.session(center);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream print = new PrintStream(buffer, true, StandardCharsets.UTF_8);
+        for (Query query : queries){
+            buffer.reset();
+            String field = "output";
+            String output;
+            try{
+                // the switch that started this group is answered with the banner the prompt prints on arriving
+                if (query.arrives){
+                    print.println(session.banner());
+                }
+                else {
+                    session.command(query.line, print);
+                }
+                output = buffer.toString(StandardCharsets.UTF_8);
+                if (output.endsWith("\n")){
+                    output = output.substring(0, output.length() - 1);
+                }
+            }
+            catch(RuntimeException e){
+                //catch a command that fails, so only its own answer is an error and the rest of the batch still runs
+                field = "error";
+                output = e.toString();
+            }
+            String answer = "{\"line\":" + query.number
+                    + ",\"center\":" + quote(center)
+                    + ",\"command\":" + quote(query.line)
+                    + ",\"" + field + "\":" + quote(output)
+                    + "}\n";
+            synchronized (out){
+                out.write(answer);
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * @param text any string
+     * @return text as a quoted JSON string
+     */
+    public static String quote(String text){
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++){
+            char c = text.charAt(i);
+            switch (c){
+                case '"': quoted.append("\\\""); break;
+                case '\\': quoted.append("\\\\"); break;
+                case '\n': quoted.append("\\n"); break;
+                case '\r': quoted.append("\\r"); break;
+                case '\t': quoted.append("\\t"); break;
+                default:
+                    if (c < 0x20){
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    }
+                    else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * runs a batch over the full files
+     * @param args file of commands, or none to read them from standard input
+     * @throws Exception if the commands can't be read or the batch fails
+     */
+    public static void main(String[] args) throws Exception {
+        Metrics.register();
+        BaconGame game = BaconGame.load("PS4/actors.txt", "PS4/movies.txt", "PS4/movie-actors.txt", "PS4/bacon.snapshot");
+        Reader commands = args.length > 0
+                ? Files.newBufferedReader(Paths.get(args[0]))
+                : new InputStreamReader(System.in, StandardCharsets.UTF_8);
+        try (Reader in = commands){
+            new BaconBatch(game, Runtime.getRuntime().availableProcessors())
+                    .run(in, new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,256 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Benchmarks loading, building both graph forms, bfs, path and centrality work, and the c, d and s command paths
+ * Each benchmark is warmed up, then timed over several iterations, and reports operations per second
+ * and bytes allocated per operation on the benchmark thread, so results can be compared release to release
+ * Fixtures are the test files, the full files, or the full files scaled up 10 or 100 times by the synthetic generator
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public class BaconBenchmark {
+    // warmup and measured rounds, and how long each round runs
+    private static final int WARMUP = 3;
+    private static final int ITERATIONS = 5;
+    private static final long ROUND_NANOS = 500_000_000L;
+
+    // where benchmarked commands print their answers
+    private static final PrintStream NOWHERE = new PrintStream(OutputStream.nullOutputStream());
+
+    // files of the fixture being measured
+    private final String actorFile;
+    private final String movieFile;
+    private final String actorMovieFile;
+
+    // one result line per benchmark, in the order they ran
+    private final List<String> results = new ArrayList<>();
+
+    /**
+     *
+     * @param actorFile file of actor ids to names
+     * @param movieFile file of movie ids to names
+     * @param actorMovieFile file of movie ids to actor ids
+     */
+    public BaconBenchmark(String actorFile, String movieFile, String actorMovieFile){
+        this.actorFile = actorFile;
+        this.movieFile = movieFile;
+        this.actorMovieFile = actorMovieFile;
+    }
+
+    /**
+     * something to time, returning its result so the work can't be optimized away
+     */
+    public interface Operation {
+        Object run() throws Exception;
+    }
+
+    /**
+     * warms up and times one operation, recording its throughput and allocation rate
+     * @param name name to report it under
+     * @param operation work to time
+     * @throws Exception if the operation fails
+     */
+    public void measure(String name, Operation operation) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP; i++){
+            round(operation, new long[1]);
+        }
+        double[] rates = new double[ITERATIONS];
+        long operations = 0;
+        long allocated = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ITERATIONS; i++){
+            long[] count = new long[1];
+            long elapsed = round(operation, count);
+            rates[i] = count[0] * 1e9 / elapsed;
+            operations += count[0];
+        }
+        allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+
+        // reports the mean with the spread across iterations
+        double mean = 0;
+        for (double rate : rates){
+            mean += rate / ITERATIONS;
+        }
+        double spread = 0;
+        for (double rate : rates){
+            spread = Math.max(spread, Math.abs(rate - mean));
+        }
+        String line = String.format("%-28s %14.3f ops/s  +- %10.3f  %14.0f B/op", name, mean, spread, (double) allocated / operations);
+        results.add(line);
+        System.out.println(line);
+    }
+
+    // runs the operation until a round's time is used up, at least once
+    private static long round(Operation operation, long[] count) throws Exception {
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            if (operation.run() == null){
+                throw new IllegalStateException("benchmark returned nothing");
+            }
+            count[0]++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ROUND_NANOS);
+        return elapsed;
+    }
+
+    /**
+     * answers one command with its output thrown away, without the prompt's help text and banner
+     * @param game game to drive
+     * @param command command line to answer
+     * @return the game, once the command has run
+     */
+    public static BaconGame command(BaconGame game, String command){
+        game.command(command, NOWHERE);
+        return game;
+    }
+
+    /**
+     * runs every benchmark against this fixture
+     * @throws Exception if a benchmark fails
+     */
+    public void runAll() throws Exception {
+        measure("parse", () -> new BaconGame(actorFile, movieFile, actorMovieFile));
+
+        BaconGame game = new BaconGame(actorFile, movieFile, actorMovieFile);
+        measure("createGraph", () -> {
+            game.createGraph();
+            return game.graph;
+        });
+        measure("stream", () -> BaconGame.stream(actorFile, movieFile, actorMovieFile).graph);
+
+        CompactGraph graph = game.compactGraph();
+        int n = graph.numVertices();
+        Random random = new Random(10);
+        int[] dist = new int[n];
+        int[] parent = new int[n];
+        int[] queue = new int[n];
+        measure("bfs (arrays)", () -> GraphLibrary.bfs(graph, random.nextInt(n), dist, parent, queue));
+        measure("bfs (path tree)", () -> GraphLibrary.bfs(graph, graph.name(random.nextInt(n))));
+        YearView recent = new YearView(graph, 2000, Integer.MAX_VALUE);
+        measure("bfs (year view)", () -> recent.bfs(random.nextInt(n), dist, parent, queue));
+        int[] heap = new int[n];
+        int[] position = new int[n];
+        EdgeWeight singles = EdgeWeight.singles(graph, 1);
+        measure("dijkstra (singles)", () -> GraphLibrary.dijkstra(graph, random.nextInt(n), singles, dist, parent, heap, position));
+        Neighborhood neighborhood = graph.indexes().neighborhood();
+        String hub = graph.name(graph.indexes().degree().highest(1)[0]);
+        measure("2 hop count (hub)", () -> neighborhood.count(hub, 2));
+        measure("2 hop members", () -> neighborhood.members(graph.name(random.nextInt(n)), 2));
+
+        BaconGame bipartiteGame = new BaconGame(actorFile, movieFile, actorMovieFile);
+        measure("createBipartiteGraph", () -> {
+            bipartiteGame.createBipartiteGraph();
+            return bipartiteGame.graph;
+        });
+        ActorGraph bipartite = bipartiteGame.actorGraph();
+        measure("bfs (bipartite)", () -> bipartite.bfs(random.nextInt(n), dist, parent, queue));
+
+        PathTree tree = game.pathtree;
+        Graph<String, Set<String>> pathgraph = GraphLibrary.bfs(graph, game.center);
+        measure("getPath (arrays)", () -> tree.getPath(graph.name(random.nextInt(n))));
+        measure("getPath (path tree)", () -> GraphLibrary.getPath(pathgraph, graph.name(random.nextInt(n))));
+        measure("missingVertices (arrays)", tree::missingVertices);
+        measure("missingVertices (path tree)", () -> GraphLibrary.missingVertices(graph, pathgraph));
+        measure("averageSeparation (arrays)", tree::averageSeparation);
+        measure("averageSeparation (tree)", () -> GraphLibrary.averageSeparation(pathgraph, game.center));
+
+        // the cold ranking is one full pass, so it only gets a single timed run, and like c it samples pivots on graphs too big to rank exactly
+        long start = System.nanoTime();
+        CentralityTable centrality = game.centrality();
+        String name = centrality.isExact() ? "centrality (cold)" : "centrality (cold, sampled)";
+        results.add(String.format("%-28s %14.3f ms (single run)", name, (System.nanoTime() - start) / 1e6));
+        System.out.println(results.get(results.size() - 1));
+
+        measure("command c 10", () -> command(game, "c 10"));
+        measure("command c -10", () -> command(game, "c -10"));
+        measure("command d 10 20", () -> command(game, "d 10 20"));
+        measure("command s 2 3", () -> command(game, "s 2 3"));
+    }
+
+    /**
+     * @return the result lines recorded so far
+     */
+    public List<String> results(){
+        return results;
+    }
+
+    /**
+     * writes a copy of the full files with every movie and actor repeated scale times
+     * Each copy keeps the original casts, but some of its credits go to actors from other copies so the copies stay connected
+     * @param directory directory holding actors.txt, movies.txt and movie-actors.txt
+     * @param scale how many copies to make
+     * @param output directory to write the scaled files into
+     * @throws IOException if a file can't be read or written
+     */
+    public static void scaleUp(String directory, int scale, String output) throws IOException {
+        List<String> actorLines = Files.readAllLines(Paths.get(directory, "actors.txt"));
+        List<String> movieLines = Files.readAllLines(Paths.get(directory, "movies.txt"));
+        List<String> creditLines = Files.readAllLines(Paths.get(directory, "movie-actors.txt"));
+        int actorStride = maxId(actorLines, 0) + 1;
+        int movieStride = maxId(movieLines, 0) + 1;
+        Random random = new Random(scale);
+        Files.createDirectories(Paths.get(output));
+
+        try (PrintWriter actors = new PrintWriter(Files.newBufferedWriter(Paths.get(output, "actors.txt")));
+             PrintWriter movies = new PrintWriter(Files.newBufferedWriter(Paths.get(output, "movies.txt")));
+             PrintWriter credits = new PrintWriter(Files.newBufferedWriter(Paths.get(output, "movie-actors.txt")))){
+            for (int copy = 0; copy < scale; copy++){
+                // the first copy keeps the original names, so Kevin Bacon is still there to center on
+                String suffix = copy == 0 ? "" : " #" + copy;
+                for (String line : actorLines){
+                    String[] splitLine = line.split("\\|");
+                    actors.println((Integer.parseInt(splitLine[0]) + copy * actorStride) + "|" + splitLine[1] + suffix);
+                }
+                for (String line : movieLines){
+                    String[] splitLine = line.split("\\|");
+                    movies.println((Integer.parseInt(splitLine[0]) + copy * movieStride) + "|" + splitLine[1] + suffix);
+                }
+                for (String line : creditLines){
+                    String[] splitLine = line.split("\\|");
+                    int actorCopy = random.nextInt(5) == 0 ? random.nextInt(scale) : copy;
+                    credits.println((Integer.parseInt(splitLine[0]) + copy * movieStride) + "|" + (Integer.parseInt(splitLine[1]) + actorCopy * actorStride));
+                }
+            }
+        }
+    }
+
+    // largest id in the given column of pipe delimited lines
+    private static int maxId(List<String> lines, int column){
+        int max = 0;
+        for (String line : lines){
+            max = Math.max(max, Integer.parseInt(line.split("\\|")[column]));
+        }
+        return max;
+    }
+
+    /**
+     * runs the benchmarks on one fixture: test, full, x10 or x100
+     * @param args fixture name, then the directory holding the data files (defaults to PS4)
+     * @throws Exception if a benchmark fails
+     */
+    public static void main(String[] args) throws Exception {
+        String fixture = args.length > 0 ? args[0] : "test";
+        String directory = args.length > 1 ? args[1] : "PS4";
+        String suffix = "";
+        if (fixture.equals("test")){
+            suffix = "Test";
+        }
+        else if (fixture.startsWith("x")){
+            // scaled fixtures are generated once into a temporary directory
+            String scaled = Paths.get(System.getProperty("java.io.tmpdir"), "bacon-" + fixture).toString();
+            if (!Files.exists(Paths.get(scaled, "movie-actors.txt"))){
+                scaleUp(directory, Integer.parseInt(fixture.substring(1)), scaled);
+            }
+            directory = scaled;
+        }
+        System.out.println("fixture " + fixture);
+        new BaconBenchmark(Paths.get(directory, "actors" + suffix + ".txt").toString(),
+                Paths.get(directory, "movies" + suffix + ".txt").toString(),
+                Paths.get(directory, "movie-actors" + suffix + ".txt").toString()).runAll();
+    }
+}
@@ -1,4 +1,5 @@
 import java.io.*;
+import java.nio.file.NoSuchFileException;
 import java.util.*;
 
 /**
@@ -7,6 +8,12 @@ import java.util.*;
  */
 
 public class BaconGame extends GraphLibrary{
+    // graphs with more actors than this rank centers from sampled pivots unless told otherwise
+    public static final int EXACT_CENTRALITY_LIMIT = 200_000;
+
+    // commands the game understands
+    private static final Set<String> COMMANDS = new HashSet<>(Arrays.asList("c", "d", "i", "p", "s", "u", "y", "w", "k", "stats", "q"));
+
     // instance maps for each file
     public Map<String, String> actorMap;
     public Map<String, String> movieMap;
@@ -15,23 +22,55 @@ public class BaconGame extends GraphLibrary{
     // instance maps that combines all file data into one
     public Map<String, Set<String>> actorMovie2Map;
 
-    // graph of the actors and their connected movies
+    // graph of the actors and their connected movies, compact once built
     public Graph<String, Set<String>> graph;
 
-    // bfs graph of given center
+    // bfs graph of given center, only built when pathGraph is asked for it
     public Graph<String, Set<String>> pathgraph;
 
+    // shortest path distances and parents from the given center
+    public PathTree pathtree;
+
+    // shortest paths from the center using only movies from a range of years, kept for the last range asked about
+    // along with its view, which holds that range's components so only one range's are ever kept
+    private PathTree yeartree;
+
     // universe center
     public String center;
 
+    // loader that read the files, which keeps how long each one took
+    public MappedLoader loader;
+
+    // number of actors in the actor file, connected or not
+    private int actorCount;
+
+    // where the built graph is saved between runs and the files it was built from, null if it isn't saved
+    private String snapshotFile;
+    private String[] sourceFiles;
+
+    // whether the saved snapshot already includes the centrality ranking
+    private boolean snapshotRanked;
+
+    // whether credits have been applied, so the graph no longer matches the files the snapshot is checked against
+    private boolean edited;
+
+    // pivots sampled for the c ranking, 0 for an exact ranking or -1 to choose by graph size, and actors refined exactly at each end
+    private int centralityPivots = -1;
+    private int centralityRefine = ApproximateCentrality.DEFAULT_REFINE;
+
+    // every movie's current cast, kept so credits can be added and removed later
+    private Map<String, List<String>> casts;
+
+    // tables as they were read from the files
+    private MappedLoader.NameTable actors;
+    private MappedLoader.NameTable movies;
+    private MappedLoader.Credits credits;
+
 
     /**
-     *
-     * @param actorFile file of actor ids to names
-     * @param movieFile file of movie ids to names
-     * @param actorMovieFile file of actor ids to movie ids
+     * starts an empty game, for when the graph comes from a snapshot instead of the files
      */
-    public BaconGame(String actorFile, String movieFile, String actorMovieFile){
+    private BaconGame(){
         // initalizes all of the instance variables
         this.actorMap = new TreeMap<>();
         this.movieMap = new TreeMap<>();
@@ -39,118 +78,492 @@ public class BaconGame extends GraphLibrary{
         this.actorMovie2Map = new TreeMap<>();
         this.graph = new AdjacencyMapGraph<>();
         this.center = "Kevin Bacon";
+        this.loader = new MappedLoader();
+    }
 
-        // reads the actorfile into a map of keys as ids and values as names
-        try{
-            try{
-                BufferedReader actorInput = new BufferedReader(new FileReader(actorFile));
-                String line;
-                while ((line = actorInput.readLine())!= null) {
-                    String[] splitLine = line.split("\\|");
-                    this.actorMap.put(splitLine[0], splitLine[1]);
-                }
-                actorInput.close();
-            }
+    /**
+     *
+     * @param actorFile file of actor ids to names
+     * @param movieFile file of movie ids to names
+     * @param actorMovieFile file of actor ids to movie ids
+     */
+    public BaconGame(String actorFile, String movieFile, String actorMovieFile){
+        this();
 
-            // catches nonexistent file exception
-            catch(FileNotFoundException e){
-                //catch exception if file not found
-                System.out.println("File does not exist");
-            }}
+        // memory maps the three files, parsing ids as ints and decoding each name once
+        // each file is read on its own, so one that's missing only leaves out what it would have added
+        long start = Metrics.start();
+        try{
+            this.actors = loader.readNames(actorFile);
+        }
+        catch(NoSuchFileException e){
+            //catch exception if file not found
+            System.out.println("File does not exist" + e.getMessage());
+        }
         catch(IOException e){
             //catch IO exception
             System.out.println("IO exception" );
         }
-
-        // reads the moviefile into a map of keys as ids and values as names
         try{
-            try{
-                BufferedReader movieInput = new BufferedReader(new FileReader(movieFile));
-                String line;
-                while ((line = movieInput.readLine())!= null) {
-                    String[] splitLine = line.split("\\|");
-                    this.movieMap.put(splitLine[0], splitLine[1]);
-                }
-                movieInput.close();
-            }
-            catch(FileNotFoundException e){
-                //catch exception if file not found
-                System.out.println("File does not exist" + e.getMessage());
-            }}
+            this.movies = loader.readNames(movieFile);
+        }
+        catch(NoSuchFileException e){
+            //catch exception if file not found
+            System.out.println("File does not exist" + e.getMessage());
+        }
         catch(IOException e){
             //catch IO exception
             System.out.println("IO exception" );
         }
-
-        // reads the actor to movie file into a map of keys as actor ids and values as a set of movie ids
         try{
-            try{
-                BufferedReader actorMovieInput = new BufferedReader(new FileReader(actorMovieFile));
-                String line;
-                while ((line = actorMovieInput.readLine())!= null) {
-                    String[] splitLine = line.split("\\|");
-                    if (!actorMovieMap.containsKey(splitLine[1])){
-                        this.actorMovieMap.put(splitLine[1], new HashSet<>());
-                    }
-                    this.actorMovieMap.get(splitLine[1]).add(splitLine[0]);
-                }
-                actorMovieInput.close();
-            }
-            catch(FileNotFoundException e){
-                //catch exception if file not found
-                System.out.println("File does not exist" + e.getMessage());
-            }}
+            this.credits = loader.readCredits(actorMovieFile);
+        }
+        catch(NoSuchFileException e){
+            //catch exception if file not found
+            System.out.println("File does not exist" + e.getMessage());
+        }
         catch(IOException e){
             //catch IO exception
             System.out.println("IO exception" );
         }
+        // a file that couldn't be read counts as empty, so building and applying credits never meet a missing table
+        if (actors == null){
+            actors = new MappedLoader.NameTable(new int[0], new String[0], 0);
+        }
+        if (movies == null){
+            movies = new MappedLoader.NameTable(new int[0], new String[0], 0);
+        }
+        if (credits == null){
+            credits = new MappedLoader.Credits(new int[0], new int[0], 0);
+        }
+
+        Metrics.phase("parse", start);
+
+        // fills the id keyed maps from the loaded tables
+        start = Metrics.start();
+        for (int i = 0; i < actors.size(); i++){
+            this.actorMap.put(String.valueOf(actors.id(i)), actors.name(i));
+        }
+        this.actorCount = actorMap.size();
+        for (int i = 0; i < movies.size(); i++){
+            this.movieMap.put(String.valueOf(movies.id(i)), movies.name(i));
+        }
+        for (int i = 0; i < credits.size(); i++){
+            String actorID = String.valueOf(credits.actor(i));
+            if (!actorMovieMap.containsKey(actorID)){
+                this.actorMovieMap.put(actorID, new HashSet<>());
+            }
+            this.actorMovieMap.get(actorID).add(String.valueOf(credits.movie(i)));
+        }
 
         // loops through all three file maps to get a map of actor names as keys and their respective sets of movie names as values
         for(String actorID: actorMovieMap.keySet()){
+            // an actor the actor file doesn't name, such as when it's missing, can't be a vertex
+            if (!actorMap.containsKey(actorID)){
+                continue;
+            }
             Set<String> movieset = new HashSet<>();
             actorMovie2Map.put(actorMap.get(actorID), movieset);
             for(String movieID: actorMovieMap.get(actorID)){
                 actorMovie2Map.get(actorMap.get(actorID)).add(movieMap.get(movieID));
             }
         }
+        Metrics.phase("join", start);
+    }
+
+    /**
+     * groups the credits by movie so each cast can be paired up directly
+     * @return a map of movie names as keys and the names of the actors in that movie as values
+     */
+    public Map<String, List<String>> castIndex(){
+        Map<String, List<String>> movieCast = new HashMap<>();
+        // goes straight through the credits, so every movie knows its own cast
+        for (int i = 0; i < credits.size(); i++){
+            String actor = actors.get(credits.actor(i));
+            String movie = movies.get(credits.movie(i));
+            // credits naming an unknown actor or movie can't be labeled, so they're left out
+            if (actor == null || movie == null){
+                continue;
+            }
+            if (!movieCast.containsKey(movie)){
+                movieCast.put(movie, new ArrayList<>());
+            }
+            movieCast.get(movie).add(actor);
+        }
+        return movieCast;
     }
 
     /**
      * forms the graph from the actor to movie name map
+     * @throws IllegalStateException if the center isn't one of the actors read
      */
     public void createGraph(){
-        // loops through the actors names from the actor to movie name map and inserts the actor into the tree
-        for(String actor: actorMovie2Map.keySet()){
-            graph.insertVertex(actor);
-        }
-        // loops through the graph twice to compare two different actors
-        for(String actor1: graph.vertices()){
-            for(String actor2: graph.vertices()){
-                // as long as they're not the same
-                if(!actor1.equals(actor2)){
-                    // makes a set of the common movies between the two actors
-                    Set<String> movieset = new HashSet();
-                    // loops through the sets of movies each actor has been in
-                    for(String movie1: actorMovie2Map.get(actor1)){
-                        for(String movie2: actorMovie2Map.get(actor2)){
-                            // if they have the same movie add it to the common movie set
-                            if(movie1.equals(movie2)){
-                                movieset.add(movie1);
-                            }
+        // pairs up each movie's cast into a compact graph, with the actors as vertices and shared movies as edge labels
+        long start = Metrics.start();
+        casts = castIndex();
+        Metrics.phase("cast index", start);
+        start = Metrics.start();
+        graph = new CompactGraph(casts, actorMovie2Map.keySet());
+        Metrics.phase("edges", start);
+        // makes a shortest path tree from the given center and the graph that was just built
+        pathtree = centerTree();
+        pathgraph = null;
+
+    }
+
+    /**
+     * forms the graph as actors linked to the movies they were in, instead of co-stars linked to each other
+     * Memory grows with the number of credits instead of with each cast squared, and every command answers the same,
+     * but applying credits rebuilds it rather than editing it in place, and it isn't saved to a snapshot
+     * @throws IllegalStateException if the center isn't one of the actors read
+     */
+    public void createBipartiteGraph(){
+        long start = Metrics.start();
+        casts = castIndex();
+        Metrics.phase("cast index", start);
+        start = Metrics.start();
+        graph = new BipartiteGraph(casts, actorMovie2Map.keySet());
+        Metrics.phase("credits", start);
+        pathtree = centerTree();
+        pathgraph = null;
+    }
+
+    /**
+     * starts a game whose co-star graph is built while the files are still being read, without filling the id keyed maps
+     * Parsing, turning ids into names and grouping the credits by movie run at the same time, so only the casts are held
+     * before the edges are paired up, instead of every file's map and their join
+     * @param actorFile file of actor ids to names
+     * @param movieFile file of movie ids to names
+     * @param actorMovieFile file of actor ids to movie ids
+     * @return a game with its graph ready
+     * @throws IllegalStateException if the center isn't one of the actors read
+     */
+    public static BaconGame stream(String actorFile, String movieFile, String actorMovieFile){
+        BaconGame game = new BaconGame();
+        StreamingLoader stream = new StreamingLoader(game.loader);
+        CastTable table = new CastTable(new String[0], new String[0], new int[0], new int[0], 0);
+        long start = Metrics.start();
+        try{
+            table = stream.read(actorFile, movieFile, actorMovieFile);
+        }
+        catch(IOException e){
+            //catch IO exception
+            System.out.println("IO exception" );
+        }
+        for (String missing : stream.missing()){
+            //a file that doesn't exist was read as empty, like the id keyed maps skip it
+            System.out.println("File does not exist" + missing);
+        }
+        Metrics.phase("stream", start);
+
+        // counts actor ids the way the id keyed map would, so repeated lines only count once
+        Set<Integer> actorIds = new HashSet<>();
+        for (int i = 0; stream.actors() != null && i < stream.actors().size(); i++){
+            actorIds.add(stream.actors().id(i));
+        }
+        game.actorCount = actorIds.size();
+
+        start = Metrics.start();
+        game.graph = new CompactGraph(table);
+        Metrics.phase("edges", start);
+        game.pathtree = game.centerTree();
+        // the casts are rebuilt from the files the first time credits are applied, like after a snapshot
+        game.sourceFiles = new String[]{actorFile, movieFile, actorMovieFile};
+        return game;
+    }
+
+    /**
+     * applies a batch of credits without rebuilding the graph, touching only the co-star edges of the movies involved
+     * Deletions go first, and the center's distances are repaired around the edges that appeared or disappeared instead of rerunning bfs
+     * A bipartite graph is instead rebuilt from the edited casts, which is one pass over the credits, and its center's tree is run again
+     * The edits only last for this game, since a graph that differs from its files is never written to the snapshot
+     * @param additions movieId|actorId lines to add
+     * @param deletions movieId|actorId lines to remove
+     */
+    public void applyCredits(List<String> additions, List<String> deletions){
+        // a game started from a snapshot only reads the files once credits start changing
+        if (casts == null){
+            try{
+                actors = loader.readNames(sourceFiles[0]);
+                movies = loader.readNames(sourceFiles[1]);
+                credits = loader.readCredits(sourceFiles[2]);
+            }
+            catch(IOException e){
+                //catch IO exception
+                System.out.println("IO exception" );
+                return;
+            }
+            casts = castIndex();
+        }
+
+        // works out which shared movies each credit adds or takes away, keeping the casts and maps in step
+        List<String[]> added = new ArrayList<>();
+        List<String[]> removed = new ArrayList<>();
+        Set<String> newActors = new HashSet<>();
+        // the id keyed maps are left empty when the game starts from a snapshot, so they're only kept up when filled
+        boolean keepMaps = !actorMap.isEmpty();
+        for (int pass = 0; pass < 2; pass++){
+            for (String line : pass == 0 ? deletions : additions){
+                String[] splitLine = line.split("\\|");
+                String actor = actors.get(Integer.parseInt(splitLine[1].trim()));
+                String movie = movies.get(Integer.parseInt(splitLine[0].trim()));
+                if (actor == null || movie == null){
+                    continue;
+                }
+                if (!casts.containsKey(movie)){
+                    casts.put(movie, new ArrayList<>());
+                }
+                List<String> cast = casts.get(movie);
+                if (pass == 0 && cast.remove(actor)){
+                    for (String costar : cast){
+                        removed.add(new String[]{actor, costar, movie});
+                    }
+                    if (keepMaps){
+                        actorMovie2Map.get(actor).remove(movie);
+                        actorMovieMap.get(splitLine[1].trim()).remove(splitLine[0].trim());
+                    }
+                }
+                else if (pass == 1 && !cast.contains(actor)){
+                    for (String costar : cast){
+                        added.add(new String[]{actor, costar, movie});
+                    }
+                    cast.add(actor);
+                    newActors.add(actor);
+                    if (keepMaps){
+                        if (!actorMovie2Map.containsKey(actor)){
+                            actorMovie2Map.put(actor, new HashSet<>());
+                            actorMovieMap.put(splitLine[1].trim(), new HashSet<>());
                         }
+                        actorMovie2Map.get(actor).add(movie);
+                        actorMovieMap.get(splitLine[1].trim()).add(splitLine[0].trim());
                     }
-                    // if the common movies set isn't empty, add it as an edge label between the two actors
-                    if(!movieset.isEmpty()){
-                        graph.insertUndirected(actor1, actor2, movieset);
+                }
+            }
+        }
 
-                    }
+        edited = true;
+        if (graph instanceof BipartiteGraph){
+            graph = new BipartiteGraph(casts, actorMovie2Map.keySet());
+            pathtree = centerTree();
+            pathgraph = null;
+            return;
+        }
 
+        CompactGraph before = compactGraph();
+        CompactGraph after = before.withEdits(newActors, added, removed);
+
+        // only edges that appeared or disappeared entirely can move a distance, label changes can't
+        List<int[]> inserted = new ArrayList<>();
+        List<int[]> deleted = new ArrayList<>();
+        for (int pass = 0; pass < 2; pass++){
+            for (String[] edit : pass == 0 ? removed : added){
+                int u = after.indexOf(edit[0]);
+                int v = after.indexOf(edit[1]);
+                boolean was = u < before.numVertices() && v < before.numVertices() && before.edgeIndex(u, v) >= 0;
+                boolean is = after.edgeIndex(u, v) >= 0;
+                if (was && !is){
+                    deleted.add(new int[]{u, v});
+                }
+                if (!was && is){
+                    inserted.add(new int[]{u, v});
                 }
             }
         }
-        // makes a shortest path graph from the given center and the graph that was just built
-        pathgraph = BaconGame.bfs(graph, center);
+        graph = after;
+        pathtree.repair(after, inserted, deleted);
+        pathgraph = null;
+    }
 
+    /**
+     * starts a game from a snapshot of an earlier build, or builds the graph from the files and snapshots it when there isn't a current one
+     * @param actorFile file of actor ids to names
+     * @param movieFile file of movie ids to names
+     * @param actorMovieFile file of actor ids to movie ids
+     * @param snapshotFile where the built graph is kept between runs
+     * @return a game with its graph ready
+     * @throws IllegalStateException if the center isn't one of the actors read
+     */
+    public static BaconGame load(String actorFile, String movieFile, String actorMovieFile, String snapshotFile){
+        BaconGame game;
+        long start = Metrics.start();
+        GraphSnapshot snapshot = GraphSnapshot.read(snapshotFile, actorFile, movieFile, actorMovieFile);
+        Metrics.phase("snapshot read", start);
+        if (snapshot != null){
+            // the snapshot already has the graph, so only the center's tree is left to build
+            game = new BaconGame();
+            game.actorCount = snapshot.actorCount();
+            game.graph = snapshot.graph();
+            game.pathtree = game.centerTree();
+            if (snapshot.centrality() != null){
+                snapshot.graph().indexes().remember(snapshot.centrality());
+                game.snapshotRanked = true;
+            }
+        }
+        else{
+            game = stream(actorFile, movieFile, actorMovieFile);
+        }
+        game.snapshotFile = snapshotFile;
+        game.sourceFiles = new String[]{actorFile, movieFile, actorMovieFile};
+        if (snapshot == null){
+            game.saveSnapshot();
+        }
+        return game;
+    }
+
+    /**
+     * starts another game over the same built graph, with its own center and path tree, for one of many simultaneous players
+     * Nothing about the graph is copied, and the session never writes the snapshot
+     * @param center name of the session's starting center
+     * @return the new session
+     */
+    public BaconGame session(String center){
+        BaconGame session = new BaconGame();
+        session.actorMap = actorMap;
+        session.movieMap = movieMap;
+        session.actorMovieMap = actorMovieMap;
+        session.actorMovie2Map = actorMovie2Map;
+        session.graph = graph;
+        session.actorCount = actorCount;
+        session.center = center;
+        session.centralityPivots = centralityPivots;
+        session.centralityRefine = centralityRefine;
+        session.pathtree = new PathTree(actorGraph(), center);
+        return session;
+    }
+
+    /**
+     * writes the graph, and its centrality table if it has been worked out, to the snapshot file
+     * Once credits have been applied the graph no longer matches its files, so it's never saved and the snapshot
+     * on disk stays the one built from the files
+     */
+    public void saveSnapshot(){
+        if (edited){
+            return;
+        }
+        try{
+            CentralityTable centrality = compactGraph().indexes().cachedCentrality();
+            GraphSnapshot.write(snapshotFile, compactGraph(), centrality, actorCount, sourceFiles);
+            snapshotRanked = centrality != null;
+        }
+        catch(IOException e){
+            //catch IO exception, the game still works without a snapshot
+            System.out.println("could not save snapshot " + e.getMessage());
+        }
+    }
+
+    // the center's tree, once the center is known to be in the graph, which it isn't when its credits couldn't be read
+    private PathTree centerTree(){
+        if (actorGraph().indexOf(center) < 0){
+            throw new IllegalStateException(center + " is not among the " + actorGraph().numVertices() + " actors read from the files, so the game can't start");
+        }
+        return new PathTree(actorGraph(), center);
+    }
+
+    /**
+     * @return the graph in compact form, which it always is once createGraph has run
+     */
+    public CompactGraph compactGraph(){
+        return (CompactGraph) graph;
+    }
+
+    /**
+     * @return the graph with its actor ids, built by either createGraph or createBipartiteGraph
+     */
+    public ActorGraph actorGraph(){
+        return (ActorGraph) graph;
+    }
+
+    /**
+     * sets how the c command ranks centers, trading accuracy for time on big graphs
+     * @param pivots actors to run bfs from when estimating, 0 to rank exactly with one bfs per actor, or -1 to estimate only past EXACT_CENTRALITY_LIMIT actors
+     * @param refine actors at each end of an estimated ranking to compute exactly
+     */
+    public void setCentralitySampling(int pivots, int refine){
+        this.centralityPivots = pivots;
+        this.centralityRefine = refine;
+    }
+
+    /**
+     * @return the ranking the c command slices, exact or estimated depending on the sampling settings
+     */
+    public CentralityTable centrality(){
+        ActorGraph actorgraph = actorGraph();
+        int pivots = centralityPivots;
+        if (pivots < 0){
+            pivots = actorgraph.numVertices() > EXACT_CENTRALITY_LIMIT ? ApproximateCentrality.DEFAULT_PIVOTS : 0;
+        }
+        if (pivots == 0){
+            return actorgraph.indexes().centrality();
+        }
+        return actorgraph.indexes().approximate(pivots, centralityRefine);
+    }
+
+    /**
+     * @return number of actors in the center's connected component, the center included
+     */
+    public int connectedCount(){
+        ActorGraph actorgraph = actorGraph();
+        return actorgraph.indexes().components().componentSize(actorgraph.indexOf(center));
+    }
+
+    /**
+     * @return the line announcing the current center, how many actors it reaches and their average separation
+     */
+    public String banner(){
+        return center + " is now the center of the acting universe, connected to " + (connectedCount() - 1) + "/" + actorCount + " actors with average separation " + pathtree.averageSeparation();
+    }
+
+    /**
+     * @return the bfs graph of the current center, built the first time it's asked for
+     */
+    public Graph<String, Set<String>> pathGraph(){
+        if (pathgraph == null){
+            pathgraph = BaconGame.bfs(graph, center);
+        }
+        return pathgraph;
+    }
+
+    /**
+     * @param low earliest release year kept
+     * @param high latest release year kept
+     * @return shortest paths from the center over only the movies released between low and high, reused while the range and graph stay the same
+     */
+    public PathTree yearTree(int low, int high){
+        YearView view = yeartree == null ? null : (YearView) yeartree.graph();
+        if (view == null || view.graph() != compactGraph() || view.low() != low || view.high() != high){
+            // the view reads the graph's own arrays, so only the new tree's bfs is paid for
+            yeartree = new PathTree(new YearView(compactGraph(), low, high), center);
+        }
+        else{
+            yeartree.setCenter(center);
+        }
+        return yeartree;
+    }
+
+    /**
+     * @param weight cost of each co-star edge
+     * @param actor name of the actor to find a path from
+     * @return ids from actor to the center along a cheapest path, both included, with its total cost last; empty if there isn't a path
+     */
+    public int[] weightedPath(EdgeWeight weight, String actor){
+        CompactGraph compact = compactGraph();
+        int n = compact.numVertices();
+        int[] dist = new int[n];
+        int[] parent = new int[n];
+        // paths run out from the center, so walking parents from the actor leads back to it like p
+        GraphLibrary.dijkstra(compact, compact.indexOf(center), weight, dist, parent, new int[n], new int[n]);
+        int v = compact.indexOf(actor);
+        if (dist[v] < 0){
+            return new int[0];
+        }
+        int[] steps = GraphLibrary.getPath(parent, v);
+        int[] path = new int[steps.length + 2];
+        for (int i = 0; i < steps.length; i++){
+            path[i] = steps[steps.length - 1 - i];
+        }
+        path[steps.length] = compact.indexOf(center);
+        path[steps.length + 1] = dist[v];
+        return path;
     }
 
     /**
@@ -158,257 +571,352 @@ public class BaconGame extends GraphLibrary{
      * about the actors
      */
     public void gameInterface(){
+        gameInterface(System.in, System.out);
+    }
+
+    /**
+     * plays the game over any pair of streams, such as one client's connection to the server
+     * @param input where the commands are read from
+     * @param out where the answers are written
+     */
+    public void gameInterface(InputStream input, PrintStream out){
         // initializes the scanner to allow for user interaction
-        Scanner in = new Scanner(System.in);
+        Scanner in = new Scanner(input);
 
         // the line in which the user will type, initialized as empty
         String line = "";
 
         // a list of all the possible commands for the game as well as the declaration of Kevin Bacon as the starting center
-        System.out.println("Commands:\n" +
+        out.println("Commands:\n" +
                 "c <#>: list top (positive number) or bottom (negative) <#> centers of the universe, sorted by average separation\n" +
                 "d <low> <high>: list actors sorted by degree, with degree between low and high\n" +
                 "i: list actors with infinite separation from the current center\n" +
                 "p <name>: find path from <name> to current center of the universe\n" +
                 "s <low> <high>: list actors sorted by non-infinite separation from the current center, with separation between low and high\n" +
                 "u <name>: make <name> the center of the universe\n" +
-                "q: quit game\n" + '\n' + center + " is now the center of the acting universe, connected to " + (pathgraph.numVertices() - 1) + "/"+ actorMap.size() + " actors with average separation " + averageSeparation(pathgraph, center));
+                "y <low> <high> [name]: separation from the current center, or <name>'s path to it, using only movies released between low and high\n" +
+                "w <recent|single> <name>: cheapest path from <name> to the current center, favoring recent movies or co-stars who shared more than one\n" +
+                "k <hops> <name>: count and list the actors within <hops> co-star links of <name>\n" +
+                "stats: show timings, counters and cache hit rates\n" +
+                "q: quit game\n" + '\n' + banner());
 
         // while the user doesn't press q to quit the game
         while(!line.equals("q")){
 
             // prints out the center of the universe
-            System.out.print(center +" game>" + '\n');
+            out.print(center +" game>" + '\n');
 
-            // updates the user line
+            // updates the user line, stopping if the input has run out
+            if (!in.hasNextLine()){
+                break;
+            }
             line = in.nextLine();
 
-            //splits the line to separate the user command and the command details
-            String[] lineSplit = line.split(" ");
-
-            // c gets a given number of best or worst centers by their average separation
-            if (lineSplit[0].equals("c")){
-               try {
-                   // makes a priority queue to compare average separations
-                   // if the inout is positive, returns the roots with the highest average separations
-                   if (Integer.valueOf(lineSplit[1]) > 0) {
-                       PriorityQueue<String> avgCenters = new PriorityQueue<String>(new Comparator<String>() {
-                           @Override
-                           public int compare(String o1, String o2) {
-                               if (averageSeparation(bfs(graph, o1), o1) < averageSeparation(bfs(graph, o2), o2)) {
-                                   return 1;
-                               }
-                               if (averageSeparation(bfs(graph, o1), o1) > averageSeparation(bfs(graph, o2), o2)) {
-                                   return -1;
-                               } else {
-                                   return 0;
-                               }
-                           }
-                       });
-
-                       // makes an array list of the desired number of centers and adds to it by removing from the priority queue
-                       ArrayList<String> topCenter = new ArrayList<>();
-                       for (String vertex : actorMovie2Map.keySet()) {
-                           avgCenters.add(vertex);
-                       }
-                       for (int i = 0; i < Integer.valueOf(lineSplit[1]); i++) {
-                           topCenter.add(avgCenters.remove());
-                       }
-                       // makes the list of string so we can print out the preface sentence
-                       String empty = "";
-                       empty += topCenter;
-                       System.out.println("best centers by average separation: " + empty);
-                   }
-
-                   // does the same as if the input is positive but returns the centers with the lowest average separations
-                   if (Integer.valueOf(lineSplit[1]) < 0) {
-                       PriorityQueue<String> avgCenters = new PriorityQueue<String>(new Comparator<String>() {
-                           @Override
-                           public int compare(String o1, String o2) {
-                               if (averageSeparation(bfs(graph, o1), o1) > averageSeparation(bfs(graph, o2), o2)) {
-                                   return 1;
-                               }
-                               if (averageSeparation(bfs(graph, o1), o1) < averageSeparation(bfs(graph, o2), o2)) {
-                                   return -1;
-                               } else {
-                                   return 0;
-                               }
-                           }
-                       });
-                       ArrayList<String> topCenter = new ArrayList<>();
-                       for (String vertex : actorMovie2Map.keySet()) {
-                           avgCenters.add(vertex);
-                       }
-                       for (int i = 0; i > Integer.valueOf(lineSplit[1]); i--) {
-                           topCenter.add(avgCenters.remove());
-                       }
-                       String empty = "";
-                       empty += topCenter;
-                       System.out.println("worst centers by average separation: " + empty);
-                   }
+            // answers the command, printing exactly what the player sees
+            try{
+                command(line, out);
+            }
+            catch(RuntimeException e){
+                //catch anything a command still throws, so one bad line is answered with an error instead of ending the game
+                out.println("could not answer " + line + ": " + e);
+            }
+        }
+    }
+
+    /**
+     * answers one command line against the current center, as typed at the game prompt
+     * @param line command and its details, separated by spaces
+     * @param out where the answer is written
+     */
+    public void command(String line, PrintStream out){
+        //splits the line to separate the user command and the command details
+        String[] lineSplit = line.split(" ");
+        long start = Metrics.start();
+
+        // c gets a given number of best or worst centers by their average separation
+        if (lineSplit[0].equals("c")){
+           try {
+               // reads the amount first, so a mistyped one doesn't wait on the ranking
+               int amount = Integer.valueOf(lineSplit[1]);
+               // every actor's average separation is computed or estimated once per graph, so both ends are just slices of the ranking
+               CentralityTable centrality = centrality();
+
+               // if the input is positive, returns the roots with the highest average separations
+               if (amount > 0) {
+                   out.println("best centers by average separation: " + centrality.highest(amount));
+               }
+
+               // if the input is negative, returns the centers with the lowest average separations
+               if (amount < 0) {
+                   out.println("worst centers by average separation: " + centrality.lowest(-amount));
                }
-               // makes sure the user only inputs numbers after the c command
-               catch(NumberFormatException e){
-                   System.out.println("centers amount must be a number.");
+
+               // an estimated ranking says how far off its averages might be
+               if (!centrality.isExact()) {
+                   out.println("estimated from sampled centers, averages within " + centrality.maxError() + " at 95% confidence");
                }
+           }
+           // makes sure the user only inputs numbers after the c command
+           catch(NumberFormatException | ArrayIndexOutOfBoundsException e){
+               out.println("centers amount must be a number.");
+           }
+        }
+
+        // d command sorts actors by their out degree from a given low and high
+        else if(lineSplit[0].equals("d")){
+
+            try{
+
+                // low is the first input, high is the second
+            int low = Integer.valueOf(lineSplit[1]);
+            int high = Integer.valueOf(lineSplit[2]);
+
+            // slices the graph's degree index, which binary searches the bounds of an array already sorted by co-star count
+            List<String> actors = actorGraph().indexes().degree().between(low, high);
+            out.println(actors);
+
+        }
+            // makes sure the user is only putting numbers as the high and low inputs
+            catch(NumberFormatException | ArrayIndexOutOfBoundsException e){
+                out.println("high and low must be numbers.");
             }
+        }
 
-            // d command sorts actors by their out degree from a given low and high
-            else if(lineSplit[0].equals("d")){
+        // i input gets the actors infinitely separated from the root
+        else if(lineSplit[0].equals("i")){
+            // everyone outside the center's connected component, read from the component labels without any bfs
+            out.println(actorGraph().indexes().components().unreachableFrom(center));
 
-                try{
+        }
 
-                    // low is the first input, high is the second
-                int low = Integer.valueOf(lineSplit[1]);
-                int high = Integer.valueOf(lineSplit[2]);
+        // p input finds the shortest path between a given actor and the center of the universe
+        else if (lineSplit[0].equals("p")){
 
-                // makes the list of the actors and adds to it if the degree is between the given high and low
-                List<String> actors = new ArrayList<String>();
-                for(String actor: pathgraph.vertices()){
-                    if(low <= pathgraph.outDegree(actor) && pathgraph.outDegree(actor)<= high){
-                        actors.add(actor);
-                    }
-                }
-                System.out.println(actors);
+            String actorValid = name(lineSplit, 1);
 
+            // makes sure the user is inputting an actor that exists in the tree
+            if(!graph.hasVertex(actorValid)){
+                out.println("invalid actor");
             }
-                // makes sure the user is only putting numbers as the high and low inputs
-                catch(NumberFormatException e){
-                    System.out.println("high and low must be numbers.");
-                }
+
+            // the user given actor doesn't have a path to the center of the universe
+            else if(!actorGraph().indexes().components().connected(actorValid, center)){
+                out.println("actor not connected to center of the universe.");
             }
 
-            // i input gets the actors infinitely separated from the root
-            else if(lineSplit[0].equals("i")){
-                //  calls missing vertices between the actor graph and the path graph of the center
-                System.out.println(BaconGame.missingVertices(graph, pathgraph));
+        // tells user if the given actor is already the center
+            else if(actorValid.equals(center)){
+                    out.println("no path because this actor is the center.");
+            }
+
+            // gets the path distance from the center of the universe, declared as that actor's number
+            else{
+            out.println(actorValid + "'s number is " + pathtree.distance(actorValid));
 
+            // walks the parent array from the given actor back to the center, looking up each movie only as it's printed
+            ActorGraph actorgraph = pathtree.graph();
+            for (int step = actorgraph.indexOf(actorValid); pathtree.parent(step) >= 0; step = pathtree.parent(step)){
+                out.println(actorgraph.name(step) + " appeared in " + pathtree.label(step) + " with " + actorgraph.name(pathtree.parent(step)));
             }
+        }
+        }
 
-            // p input finds the shortest path between a given actor and the center of the universe
-            else if (lineSplit[0].equals("p")){
+        // s returns a list of actors sorted by their separation from the root given a low and high boundary
+        else if(lineSplit[0].equals("s")){
+            // first input is the lowest and second is the highest possible separation
+            try{
+            int low = Integer.valueOf(lineSplit[1]);
+            int high = Integer.valueOf(lineSplit[2]);
 
-                // makes a string of the entire second half of the input just in case it's not one word
-                String actorValid = "";
-                for (int j = 1; j<lineSplit.length ; j ++) {
-                    if (j != lineSplit.length - 1) {
-                        actorValid += lineSplit[j] + " ";
-                    }
-                    else {
-                        actorValid += lineSplit[j];
-                    }
-                }
+            // concatenates the center's separation buckets from low to high, which are only sorted once per center
+            List<String> actorlist = pathtree.separatedBetween(low, high);
+            out.println(actorlist);
 
-                // makes sure the user is inputting an actor that exists in the tree
-                if(!actorMovie2Map.containsKey(actorValid)){
-                    System.out.println("invalid actor");
-                }
+        }
+            // makes sure the user inputs numbers as the high and low bounds
+            catch(NumberFormatException | ArrayIndexOutOfBoundsException e){
+                out.println("high and low must be numbers.");
+            }
+        }
 
-                // the user given actor doesn't have a path to the center of the universe
+        // u input sets the center of the universe to the given actor
+       else if(lineSplit[0].equals("u")){
+
+            String actorValid = name(lineSplit, 1);
+
+            // if the map doesn't have the user given actor throw an exception
             if(!graph.hasVertex(actorValid)){
-                    System.out.println("actor not connected to center of the universe.");
-                }
+                out.println("invalid actor");
+            }
 
-            // tells user if the given actor is already the center
-                else if(actorValid.equals(center)){
-                        System.out.println("no path because this actor is the center.");
-                }
+            // throw an exception if the user inputs the center of the universe
+            else if(actorValid.equals(center)){
+                out.println("this actor is already the center.");
+            }
+
+            // changes the center instance variable to the user input and moves the path tree there, reusing a cached tree of a recent center
+            else{
+            center = actorValid;
+            pathtree.setCenter(center);
+            pathgraph = null;
+            out.println(banner());
+            }
+        }
+        // y answers separation and path questions using only the movies released in a range of years
+        else if(lineSplit[0].equals("y")){
+            try{
+                int low = Integer.valueOf(lineSplit[1]);
+                int high = Integer.valueOf(lineSplit[2]);
 
-                // gets the path distance from the center of the universe, declared as that actor's number
-                else{ int i = 0;
-                String name = line.substring(2);
-                for (String step : getPath(pathgraph, name)){
-                    i += 1;
+                String actorValid = name(lineSplit, 3);
+
+                // the years are read off the co-star graph's edges, which the bipartite graph doesn't have
+                if (!(graph instanceof CompactGraph)){
+                    out.println("year queries need the co-star graph.");
                 }
-                System.out.println(name + "'s number is " + i);
 
-                // makes an array list to go backwards from the given actor back to the center
-                ArrayList<String> reversePath = new ArrayList<>();
+                // without a name, tells how much of the universe the center reaches in those years
+                else if (actorValid.isEmpty()){
+                    PathTree tree = yearTree(low, high);
+                    ActorGraph view = tree.graph();
+                    int reached = view.indexes().components().componentSize(view.indexOf(center)) - 1;
+                    out.println(center + " is connected to " + reached + "/" + actorCount + " actors through movies from " + low + " to " + high
+                            + " with average separation " + tree.averageSeparation());
+                }
 
-                // goes through the shortest path and adds it to the list
-                for (String step : getPath(pathgraph, name)){
-                    for (String neighbor: pathgraph.outNeighbors(step)){
-                        reversePath.add(0, step + " appeared in " + pathgraph.getLabel(step, neighbor) + " with " +  neighbor);
-                    }
+                // makes sure the user is inputting an actor that exists in the graph
+                else if (!graph.hasVertex(actorValid)){
+                    out.println("invalid actor");
                 }
-                // loops through the list and prints out each co star statement
-                for (int j = 0 ; j < reversePath.size() ; j++ ){
-                    System.out.println(reversePath.get(j));
+
+                // tells user if the given actor is already the center
+                else if (actorValid.equals(center)){
+                    out.println("no path because this actor is the center.");
                 }
-            }
-            }
 
-            // s returns a list of actors sorted by their separation from the root given a low and high boundary
-            else if(lineSplit[0].equals("s")){
-                // first input is the lowest and second is the highest possible separation
-                try{
-                int low = Integer.valueOf(lineSplit[1]);
-                int high = Integer.valueOf(lineSplit[2]);
+                // the actor only counts as connected if the path's movies are all from those years
+                else if (!yearTree(low, high).graph().indexes().components().connected(actorValid, center)){
+                    out.println("actor not connected to center of the universe through movies from " + low + " to " + high + ".");
+                }
 
-                // initializes an actor list
-                List<String> actorlist = new ArrayList<>();
-                // loops through the path graph and adds to the list only if the actors separation is in between the bounds
-                for(String actor: pathgraph.vertices()){
-                    if(low<= getPath(pathgraph, actor).size() && getPath(pathgraph, actor).size() <= high){
-                        actorlist.add(actor);
+                // walks the view's tree back to the center, printing only the shared movies from those years
+                else{
+                    PathTree tree = yearTree(low, high);
+                    out.println(actorValid + "'s number through movies from " + low + " to " + high + " is " + tree.distance(actorValid));
+                    ActorGraph view = tree.graph();
+                    for (int step = view.indexOf(actorValid); tree.parent(step) >= 0; step = tree.parent(step)){
+                        out.println(view.name(step) + " appeared in " + tree.label(step) + " with " + view.name(tree.parent(step)));
                     }
                 }
-                System.out.println(actorlist);
-
             }
-                // makes sure the user inputs numbers as the high and low bounds
-                catch(NumberFormatException e){
-                    System.out.println("high and low must be numbers.");
-                }
+            // makes sure the user inputs numbers as the years
+            catch(NumberFormatException | ArrayIndexOutOfBoundsException e){
+                out.println("low and high years must be numbers.");
             }
+        }
 
-            // u input sets the center of the universe to the given actor
-           else if(lineSplit[0].equals("u")){
+        // w finds the cheapest path to the center when some co-star links count for more than others
+        else if(lineSplit[0].equals("w")){
+            String actorValid = name(lineSplit, 2);
+            String mode = lineSplit.length > 1 ? lineSplit[1] : "";
 
-                // makes a string of the entire second half of the input just in case it's not one word
-                String actorValid = "";
-                for (int j = 1; j<lineSplit.length ; j ++) {
-                    if (j != lineSplit.length - 1) {
-                        actorValid += lineSplit[j] + " ";
-                    }
-                    else {
-                        actorValid += lineSplit[j];
+            if (!(graph instanceof CompactGraph)){
+                out.println("weighted queries need the co-star graph.");
+            }
+            else if (!mode.equals("recent") && !mode.equals("single")){
+                out.println("weight must be recent or single.");
+            }
+            else if (!graph.hasVertex(actorValid)){
+                out.println("invalid actor");
+            }
+            else if (actorValid.equals(center)){
+                out.println("no path because this actor is the center.");
+            }
+            else{
+                // recent adds a step per decade since the pair's newest movie, single doubles the step of a pair with only one movie
+                CompactGraph compact = compactGraph();
+                MovieYears years = compact.indexes().years();
+                EdgeWeight weight = mode.equals("recent") ? EdgeWeight.recent(years, years.latest()) : EdgeWeight.singles(compact, 1);
+                int[] path = weightedPath(weight, actorValid);
+                if (path.length == 0){
+                    out.println("actor not connected to center of the universe.");
+                }
+                else{
+                    out.println(actorValid + "'s weighted distance is " + path[path.length - 1] + " over " + (path.length - 2) + " steps");
+                    for (int i = 0; i + 2 < path.length; i++){
+                        out.println(compact.name(path[i]) + " appeared in " + compact.sharedMovies(path[i], path[i + 1]) + " with " + compact.name(path[i + 1]));
                     }
                 }
+            }
+        }
 
-                // if the map doesn't have the user given actor throw an exception
-                if(!actorMovie2Map.containsKey(actorValid)){
-                    System.out.println("invalid actor");
-                }
+        // k lists who is within a few hops of an actor, searching out only that far instead of over the whole graph
+        else if(lineSplit[0].equals("k")){
+            try{
+                int hops = Integer.valueOf(lineSplit[1]);
 
-                // throw an exception if the user inputs the center of the universe
-                else if(actorValid.equals(center)){
-                    System.out.println("this actor is already the center.");
-                }
+                String actorValid = name(lineSplit, 2);
 
-                // changes the center instance variable to the user input and recalls bfs on the new center
+                if (!graph.hasVertex(actorValid)){
+                    out.println("invalid actor");
+                }
                 else{
-                center = line.substring(2);
-                pathgraph = BaconGame.bfs(graph, center);
-                System.out.println(center + " is now the center of the acting universe, connected to " + (pathgraph.numVertices() - 1)+ "/" + actorMap.size() + " actors with average separation " + averageSeparation(pathgraph, center));
+                    // the highest degree actors keep their near frontiers, so their counts come without a search
+                    Neighborhood neighborhood = actorGraph().indexes().neighborhood();
+                    out.println(actorValid + " has " + neighborhood.count(actorValid, hops) + " actors within " + hops + " hops: " + neighborhood.members(actorValid, hops));
                 }
             }
-           // quits the game by ending the scanner loop
-            else if(lineSplit[0].equals("q")){
-                System.out.println("thanks for playing.");
+            // makes sure the user inputs a number of hops
+            catch(NumberFormatException | ArrayIndexOutOfBoundsException e){
+                out.println("hops must be a number.");
             }
-            // if the command wasn't one of the given ones, throw an error
-            else {
-                System.out.println("invalid command.");
+        }
+
+        // stats prints what the metrics have recorded so far
+        else if(lineSplit[0].equals("stats")){
+            out.println(Metrics.report());
+        }
+       // quits the game by ending the scanner loop
+        else if(lineSplit[0].equals("q")){
+            out.println("thanks for playing.");
+            // keeps the centrality ranking for next time if it was worked out during this game, unless credits changed the graph
+            if (snapshotFile != null && !snapshotRanked && !edited && actorGraph().indexes().cachedCentrality() != null){
+                saveSnapshot();
             }
         }
+        // if the command wasn't one of the given ones, throw an error
+        else {
+            out.println("invalid command.");
+        }
+        // times each command under its letter, and anything unrecognized together
+        Metrics.latency(COMMANDS.contains(lineSplit[0]) ? lineSplit[0] : "invalid", start);
+    }
+
+    // makes a string of the rest of the input from the given word on, just in case the name is more than one word, and empty if the input stops short of it
+    private static String name(String[] lineSplit, int from){
+        return String.join(" ", Arrays.copyOfRange(lineSplit, Math.min(from, lineSplit.length), lineSplit.length));
     }
 
 
 // tests the game on the given test file
     public static void main(String[] args) {
-        BaconGame test = new BaconGame("PS4/actorsTest.txt", "PS4/moviesTest.txt", "PS4/movie-actorsTest.txt");
-        test.createGraph();
+        Metrics.register();
+        BaconGame test;
+        try{
+            // the bipartite graph is built fresh each time, since snapshots hold the co-star graph
+            if (args.length > 0 && args[0].equals("bipartite")){
+                test = new BaconGame("PS4/actorsTest.txt", "PS4/moviesTest.txt", "PS4/movie-actorsTest.txt");
+                test.createBipartiteGraph();
+            }
+            else{
+                test = BaconGame.load("PS4/actorsTest.txt", "PS4/moviesTest.txt", "PS4/movie-actorsTest.txt", "PS4/baconTest.snapshot");
+            }
+        }
+        catch(IllegalStateException e){
+            //catch a graph without the center, the game has nothing to play
+            System.out.println(e.getMessage());
+            return;
+        }
         test.gameInterface();
 
     }
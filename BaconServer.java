@@ -0,0 +1,118 @@
+import java.io.*;
+import java.net.*;
+import java.util.concurrent.*;
+
+/**
+ * Serves the game to many players at once over a plain line protocol, one socket connection per player
+ * Every connection plays its own session with its own center, while all of them read the one graph that was loaded
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public class BaconServer {
+    // default port to listen on
+    public static final int DEFAULT_PORT = 4040;
+
+    // loaded game whose graph every session shares
+    private final BaconGame game;
+
+    // runs each connection on its own thread
+    private final ExecutorService connections;
+
+    // socket accepting players, null until the server starts
+    private ServerSocket server;
+
+    /**
+     * readies every ranking and index the commands use on the shared graph up front
+     * The graph keeps them in its final GraphIndexes, so sessions only ever read them and never wait on one being built
+     * @param game game with its graph built
+     */
+    public BaconServer(BaconGame game){
+        this.game = game;
+        ActorGraph graph = game.actorGraph();
+        game.centrality();
+        graph.indexes().degree();
+        graph.indexes().components();
+        graph.indexes().neighborhood();
+        if (graph instanceof CompactGraph){
+            graph.indexes().years();
+        }
+        this.connections = threadPerConnection();
+    }
+
+    // a virtual thread per connection where the runtime has them, otherwise a pool that grows a thread per connection
+    private static ExecutorService threadPerConnection(){
+        try{
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch(ReflectiveOperationException e){
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * accepts players until the server is closed, each one starting at the game's center
+     * @param port port to listen on, 0 for any free port
+     * @throws IOException if the port can't be opened
+     */
+    public void serve(int port) throws IOException {
+        server = new ServerSocket(port);
+        System.out.println("serving " + game.center + "'s universe on port " + server.getLocalPort());
+        try{
+            while (!server.isClosed()){
+                Socket socket = server.accept();
+                connections.submit(() -> play(socket));
+            }
+        }
+        catch(SocketException e){
+            // the socket was closed, so the server is shutting down
+        }
+        finally{
+            connections.shutdown();
+        }
+    }
+
+    /**
+     * @return the port being listened on, -1 before the server starts
+     */
+    public int port(){
+        return server == null ? -1 : server.getLocalPort();
+    }
+
+    /**
+     * stops accepting players, letting the ones already connected finish
+     * @throws IOException if the socket can't be closed
+     */
+    public void close() throws IOException {
+        if (server != null){
+            server.close();
+        }
+    }
+
+    // plays one session over a connection until the player quits or hangs up
+    private void play(Socket socket){
+        try (Socket connection = socket){
+            PrintStream out = new PrintStream(connection.getOutputStream(), true, "UTF-8");
+            game.session(game.center).gameInterface(connection.getInputStream(), out);
+        }
+        catch(IOException e){
+            //catch IO exception, only this player's connection is lost
+            System.out.println("connection lost " + e.getMessage());
+        }
+        catch(RuntimeException e){
+            //catch a failure outside any one command, which the executor would otherwise swallow without a word
+            System.out.println("session failed " + e);
+        }
+    }
+
+    /**
+     * serves the full files
+     * @param args port to listen on, defaults to DEFAULT_PORT
+     * @throws IOException if the port can't be opened
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Metrics.register();
+        BaconGame game = BaconGame.load("PS4/actors.txt", "PS4/movies.txt", "PS4/movie-actors.txt", "PS4/bacon.snapshot");
+        new BaconServer(game).serve(port);
+    }
+}
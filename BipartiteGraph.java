@@ -0,0 +1,305 @@
+import java.util.*;
+
+/**
+ * Immutable graph of actors and the movies they were in, stored as the credits themselves instead of co-star edges
+ * Each actor's movies and each movie's cast sit in slices of two shared arrays, so memory grows with the number of credits
+ * rather than with the square of each cast, and the movies linking two co-stars are whatever their slices have in common
+ * Actor and movie ids come from the same CastTable a CompactGraph is built from, so both give the same answers
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public class BipartiteGraph implements ActorGraph {
+    // actor names by id and the reverse lookup
+    private final String[] names;
+    private final Map<String, Integer> ids;
+
+    // movie titles by id
+    private final String[] movies;
+
+    // movies of actor i are actorMovies[actorOffsets[i]] up to actorMovies[actorOffsets[i+1]], sorted by id
+    private final int[] actorOffsets;
+    private final int[] actorMovies;
+
+    // cast of movie m is movieActors[movieOffsets[m]] up to movieActors[movieOffsets[m+1]], sorted by id
+    private final int[] movieOffsets;
+    private final int[] movieActors;
+
+    // movies already passed through, one array per thread so bfs can run from many sources at once
+    private final ThreadLocal<boolean[]> seenMovies;
+
+    // rankings and indexes built over the graph, each the first time it's asked for
+    private final GraphIndexes indexes = new GraphIndexes(this);
+
+    /**
+     * stores each movie's cast as credits, without pairing the actors up
+     * @param movieCast map of movie names to the names of the actors in them
+     * @param actors every actor that should be a vertex, including ones with no co-stars
+     */
+    public BipartiteGraph(Map<String, List<String>> movieCast, Collection<String> actors){
+        this(CastTable.of(movieCast, actors));
+    }
+
+    /**
+     * stores the table's casts as credits, keeping its actor and movie ids
+     * @param casts every movie's cast as actor ids
+     */
+    public BipartiteGraph(CastTable casts){
+        this.names = casts.names();
+        this.ids = new HashMap<>();
+        for (int i = 0; i < names.length; i++){
+            ids.put(names[i], i);
+        }
+        this.movies = casts.movies();
+        this.movieOffsets = casts.offsets();
+        this.movieActors = casts.actors();
+
+        // turns the casts around, and going through the movies in order leaves each actor's movies sorted
+        this.actorOffsets = new int[names.length + 1];
+        for (int actor : movieActors){
+            actorOffsets[actor + 1]++;
+        }
+        for (int i = 0; i < names.length; i++){
+            actorOffsets[i + 1] += actorOffsets[i];
+        }
+        this.actorMovies = new int[movieActors.length];
+        int[] next = Arrays.copyOf(actorOffsets, names.length);
+        for (int m = 0; m < movies.length; m++){
+            for (int k = movieOffsets[m]; k < movieOffsets[m + 1]; k++){
+                actorMovies[next[movieActors[k]]++] = m;
+            }
+        }
+        this.seenMovies = ThreadLocal.withInitial(() -> new boolean[movies.length]);
+    }
+
+    /**
+     * @param id dense actor id
+     * @return the actor name with that id
+     */
+    public String name(int id){
+        return names[id];
+    }
+
+    /**
+     * @param v actor name
+     * @return the dense id of v, or -1 if v isn't in the graph
+     */
+    public int indexOf(String v){
+        Integer id = ids.get(v);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param movie dense movie id
+     * @return the title of that movie
+     */
+    public String movie(int movie){
+        return movies[movie];
+    }
+
+    /**
+     * @return the number of movies
+     */
+    public int numMovies(){
+        return movies.length;
+    }
+
+    /**
+     * @return the number of distinct actor and movie pairs
+     */
+    public int numCredits(){
+        return movieActors.length;
+    }
+
+    /**
+     * row starts into actorMovies(), one past the last actor included; callers must not modify it
+     */
+    public int[] actorOffsets(){
+        return actorOffsets;
+    }
+
+    /**
+     * every actor's movies, back to back; callers must not modify it
+     */
+    public int[] actorMovies(){
+        return actorMovies;
+    }
+
+    /**
+     * row starts into movieActors(), one past the last movie included; callers must not modify it
+     */
+    public int[] movieOffsets(){
+        return movieOffsets;
+    }
+
+    /**
+     * every movie's cast, back to back; callers must not modify it
+     */
+    public int[] movieActors(){
+        return movieActors;
+    }
+
+    public int bfs(int source, int[] dist, int[] parent, int[] queue){
+        boolean[] seen = seenMovies.get();
+        Arrays.fill(seen, false);
+        return GraphLibrary.bfs(this, source, dist, parent, queue, seen);
+    }
+
+    public Set<String> sharedMovies(int u, int v){
+        // both rows are sorted, so the shared movies come out of one merge in the same order CompactGraph stores them
+        Set<String> movieset = new HashSet<>();
+        int i = actorOffsets[u];
+        int j = actorOffsets[v];
+        while (i < actorOffsets[u + 1] && j < actorOffsets[v + 1]){
+            if (actorMovies[i] < actorMovies[j]){
+                i++;
+            }
+            else if (actorMovies[i] > actorMovies[j]){
+                j++;
+            }
+            else {
+                movieset.add(movies[actorMovies[i]]);
+                i++;
+                j++;
+            }
+        }
+        return movieset;
+    }
+
+    public int[] degrees(){
+        // stamps each co-star with the actor being counted, so nobody is counted twice across shared movies
+        int[] degrees = new int[names.length];
+        int[] stamp = new int[names.length];
+        Arrays.fill(stamp, -1);
+        for (int u = 0; u < names.length; u++){
+            stamp[u] = u;
+            for (int k = actorOffsets[u]; k < actorOffsets[u + 1]; k++){
+                int m = actorMovies[k];
+                for (int c = movieOffsets[m]; c < movieOffsets[m + 1]; c++){
+                    if (stamp[movieActors[c]] != u){
+                        stamp[movieActors[c]] = u;
+                        degrees[u]++;
+                    }
+                }
+            }
+        }
+        return degrees;
+    }
+
+    public GraphIndexes indexes(){
+        return indexes;
+    }
+
+    // an actor's distinct co-stars, sorted by id
+    private int[] costars(int u){
+        Set<Integer> costars = new TreeSet<>();
+        for (int k = actorOffsets[u]; k < actorOffsets[u + 1]; k++){
+            int m = actorMovies[k];
+            for (int c = movieOffsets[m]; c < movieOffsets[m + 1]; c++){
+                if (movieActors[c] != u){
+                    costars.add(movieActors[c]);
+                }
+            }
+        }
+        int[] row = new int[costars.size()];
+        int i = 0;
+        for (int v : costars){
+            row[i++] = v;
+        }
+        return row;
+    }
+
+    // wraps an actor's co-stars as names
+    private Iterable<String> row(int u){
+        List<String> row = new ArrayList<>();
+        for (int v : costars(u)){
+            row.add(names[v]);
+        }
+        return row;
+    }
+
+    public int numVertices(){
+        return names.length;
+    }
+
+    // counts each co-star pair once from each side, like the co-star graph's edge slots
+    public int numEdges(){
+        int edges = 0;
+        for (int degree : degrees()){
+            edges += degree;
+        }
+        return edges;
+    }
+
+    public Iterable<String> vertices(){
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    public boolean hasVertex(String v){
+        return ids.containsKey(v);
+    }
+
+    public boolean hasEdge(String u, String v){
+        return hasVertex(u) && hasVertex(v) && id(u) != id(v) && !sharedMovies(id(u), id(v)).isEmpty();
+    }
+
+    public Set<String> getLabel(String u, String v){
+        if (!hasEdge(u, v)){
+            return null;
+        }
+        return sharedMovies(id(u), id(v));
+    }
+
+    public int outDegree(String v){
+        return costars(id(v)).length;
+    }
+
+    // every co-star link goes both ways, so in and out are the same
+    public int inDegree(String v){
+        return outDegree(v);
+    }
+
+    public Iterable<String> outNeighbors(String v){
+        return row(id(v));
+    }
+
+    public Iterable<String> inNeighbors(String v){
+        return row(id(v));
+    }
+
+    public void insertVertex(String v){
+        throw new UnsupportedOperationException("bipartite graphs are immutable");
+    }
+
+    public void insertDirected(String u, String v, Set<String> e){
+        throw new UnsupportedOperationException("bipartite graphs are immutable");
+    }
+
+    public void insertUndirected(String u, String v, Set<String> e){
+        throw new UnsupportedOperationException("bipartite graphs are immutable");
+    }
+
+    public void removeVertex(String v){
+        throw new UnsupportedOperationException("bipartite graphs are immutable");
+    }
+
+    public void removeDirected(String u, String v){
+        throw new UnsupportedOperationException("bipartite graphs are immutable");
+    }
+
+    public void removeUndirected(String u, String v){
+        throw new UnsupportedOperationException("bipartite graphs are immutable");
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder result = new StringBuilder("Actors: " + Arrays.toString(names) + "\nCasts: {");
+        for (int m = 0; m < movies.length; m++){
+            result.append(m == 0 ? "" : ", ").append(movies[m]).append("=[");
+            for (int k = movieOffsets[m]; k < movieOffsets[m + 1]; k++){
+                result.append(k == movieOffsets[m] ? "" : ", ").append(names[movieActors[k]]);
+            }
+            result.append("]");
+        }
+        return result.append("}").toString();
+    }
+}
@@ -0,0 +1,120 @@
+import java.util.*;
+
+/**
+ * Every movie's cast as dense actor ids, the common starting point of both graph forms
+ * Actors are numbered in name order and each cast is sorted by id with repeats dropped,
+ * so the co-star graph and the actor to movie graph built from one table agree on every id
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public class CastTable {
+    // actor names by id and movie titles by id
+    private final String[] names;
+    private final String[] movies;
+
+    // cast of movie m is actors[offsets[m]] up to actors[offsets[m+1]], sorted by id
+    private final int[] offsets;
+    private final int[] actors;
+
+    /**
+     * groups credits by movie, sorting each cast and dropping an actor credited twice in the same movie
+     * @param names actor names by id, in name order
+     * @param movies movie titles by id
+     * @param creditMovies movie id of each credit
+     * @param creditActors actor id of each credit
+     * @param credits number of credits in the two arrays
+     */
+    public CastTable(String[] names, String[] movies, int[] creditMovies, int[] creditActors, int credits){
+        this.names = names;
+        this.movies = movies;
+
+        // a counting sort by movie keeps the credits of each movie together, wherever they were in the file
+        int[] offsets = new int[movies.length + 1];
+        for (int i = 0; i < credits; i++){
+            offsets[creditMovies[i] + 1]++;
+        }
+        for (int m = 0; m < movies.length; m++){
+            offsets[m + 1] += offsets[m];
+        }
+        int[] castList = new int[credits];
+        int[] next = Arrays.copyOf(offsets, movies.length);
+        for (int i = 0; i < credits; i++){
+            castList[next[creditMovies[i]]++] = creditActors[i];
+        }
+
+        // sorts each cast and squeezes out repeats, moving the casts down over the gaps
+        int fill = 0;
+        for (int m = 0; m < movies.length; m++){
+            int start = offsets[m];
+            int end = offsets[m + 1];
+            offsets[m] = fill;
+            Arrays.sort(castList, start, end);
+            for (int k = start; k < end; k++){
+                if (k == start || castList[k] != castList[k - 1]){
+                    castList[fill++] = castList[k];
+                }
+            }
+        }
+        offsets[movies.length] = fill;
+        this.offsets = offsets;
+        this.actors = Arrays.copyOf(castList, fill);
+    }
+
+    /**
+     * numbers the actors and movies of a name keyed cast map
+     * @param movieCast map of movie names to the names of the actors in them
+     * @param actors every actor that should get an id, including ones with no co-stars
+     * @return the casts with dense ids
+     */
+    public static CastTable of(Map<String, List<String>> movieCast, Collection<String> actors){
+        // two actor ids can share a name, which the name keyed maps already treat as one actor
+        String[] names = new TreeSet<>(actors).toArray(new String[0]);
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < names.length; i++){
+            ids.put(names[i], i);
+        }
+        String[] movies = movieCast.keySet().toArray(new String[0]);
+        int credits = 0;
+        for (List<String> cast : movieCast.values()){
+            credits += cast.size();
+        }
+        int[] creditMovies = new int[credits];
+        int[] creditActors = new int[credits];
+        int fill = 0;
+        for (int m = 0; m < movies.length; m++){
+            for (String actor : movieCast.get(movies[m])){
+                creditMovies[fill] = m;
+                creditActors[fill++] = ids.get(actor);
+            }
+        }
+        return new CastTable(names, movies, creditMovies, creditActors, credits);
+    }
+
+    /**
+     * actor names by id; callers must not modify it
+     */
+    public String[] names(){
+        return names;
+    }
+
+    /**
+     * movie titles by id; callers must not modify it
+     */
+    public String[] movies(){
+        return movies;
+    }
+
+    /**
+     * row starts into actors(), one past the last movie included; callers must not modify it
+     */
+    public int[] offsets(){
+        return offsets;
+    }
+
+    /**
+     * every movie's cast, back to back; callers must not modify it
+     */
+    public int[] actors(){
+        return actors;
+    }
+}
@@ -0,0 +1,172 @@
+import java.util.*;
+
+/**
+ * Every actor's average separation, computed once per graph and kept sorted so the c command is just a slice
+ * Each graph keeps its own table in its GraphIndexes, so a rebuilt graph gets a fresh table and the old one is dropped with it
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public class CentralityTable {
+    // graph the table was computed over
+    private final ActorGraph graph;
+
+    // average separation and number of connected actors for each actor id
+    private final double[] averages;
+    private final int[] reached;
+
+    // half width of each average's 95% confidence interval, null when every average is exact
+    private final double[] errors;
+
+    // actor ids with a finite average separation, lowest average first
+    private final int[] order;
+
+    /**
+     * runs one bfs per actor, all sharing the same buffers
+     * @param graph actor graph to rank
+     */
+    public CentralityTable(ActorGraph graph){
+        int n = graph.numVertices();
+        double[] averages = new double[n];
+        int[] reached = new int[n];
+        int[] dist = new int[n];
+        int[] parent = new int[n];
+        int[] queue = new int[n];
+        for (int v = 0; v < n; v++){
+            reached[v] = graph.bfs(v, dist, parent, queue);
+            averages[v] = GraphLibrary.averageSeparation(dist, n);
+        }
+        this.graph = graph;
+        this.averages = averages;
+        this.reached = reached;
+        this.errors = null;
+        this.order = rank(averages);
+    }
+
+    /**
+     * builds a table from averages that were already computed elsewhere, such as by ParallelCentrality
+     * @param graph actor graph the averages belong to
+     * @param averages average separation by actor id
+     * @param reached connected actor count by actor id, itself included
+     */
+    public CentralityTable(ActorGraph graph, double[] averages, int[] reached){
+        this(graph, averages, reached, null);
+    }
+
+    /**
+     * builds a table from estimated averages, such as ApproximateCentrality's
+     * @param graph actor graph the averages belong to
+     * @param averages average separation by actor id
+     * @param reached connected actor count by actor id, itself included
+     * @param errors half width of each average's 95% confidence interval by actor id, 0 where it's exact, or null if all are exact
+     */
+    public CentralityTable(ActorGraph graph, double[] averages, int[] reached, double[] errors){
+        this.graph = graph;
+        this.averages = averages;
+        this.reached = reached;
+        this.errors = errors;
+        this.order = rank(averages);
+    }
+
+    // sorts the actors with a finite average separation, ties broken by id so the order is repeatable
+    private static int[] rank(double[] averages){
+        List<Integer> ids = new ArrayList<>();
+        for (int v = 0; v < averages.length; v++){
+            // an actor with no co-stars has no separation to average, so it isn't ranked
+            if (!Double.isNaN(averages[v])){
+                ids.add(v);
+            }
+        }
+        ids.sort(new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                int byAverage = Double.compare(averages[o1], averages[o2]);
+                return byAverage != 0 ? byAverage : Integer.compare(o1, o2);
+            }
+        });
+        int[] order = new int[ids.size()];
+        for (int i = 0; i < order.length; i++){
+            order[i] = ids.get(i);
+        }
+        return order;
+    }
+
+    /**
+     * @return the graph this table ranks
+     */
+    public ActorGraph graph(){
+        return graph;
+    }
+
+    /**
+     * @param actor actor id
+     * @return the actor's average separation, NaN if it has no co-stars
+     */
+    public double averageSeparation(int actor){
+        return averages[actor];
+    }
+
+    /**
+     * @param actor actor id
+     * @return half width of the 95% confidence interval around the actor's average separation, 0 if it's exact
+     */
+    public double error(int actor){
+        return errors == null ? 0 : errors[actor];
+    }
+
+    /**
+     * @return whether every average separation in the table is exact
+     */
+    public boolean isExact(){
+        return errors == null;
+    }
+
+    /**
+     * @return the widest 95% confidence interval half width of any actor, 0 if the table is exact
+     */
+    public double maxError(){
+        double max = 0;
+        for (int i = 0; errors != null && i < errors.length; i++){
+            max = Math.max(max, errors[i]);
+        }
+        return max;
+    }
+
+    /**
+     * @param actor actor id
+     * @return number of actors connected to it, itself included
+     */
+    public int numReached(int actor){
+        return reached[actor];
+    }
+
+    /**
+     * @return number of actors that have an average separation to rank
+     */
+    public int size(){
+        return order.length;
+    }
+
+    /**
+     * @param k how many actors to return
+     * @return up to k actor names with the highest average separation, highest first
+     */
+    public List<String> highest(int k){
+        List<String> centers = new ArrayList<>();
+        for (int i = order.length - 1; i >= Math.max(0, order.length - k); i--){
+            centers.add(graph.name(order[i]));
+        }
+        return centers;
+    }
+
+    /**
+     * @param k how many actors to return
+     * @return up to k actor names with the lowest average separation, lowest first
+     */
+    public List<String> lowest(int k){
+        List<String> centers = new ArrayList<>();
+        for (int i = 0; i < Math.min(k, order.length); i++){
+            centers.add(graph.name(order[i]));
+        }
+        return centers;
+    }
+}
@@ -0,0 +1,544 @@
+import java.util.*;
+
+/**
+ * Immutable undirected graph stored in compressed sparse row form
+ * Actors get dense int ids, each actor's co-stars sit in one slice of a shared neighbor array
+ * Edge labels are int movie ids, only turned back into titles when asked for: an edge sharing one movie stores just its id,
+ * and the rare edge sharing several points at a sorted run of ids kept once however many edges share that exact set
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public class CompactGraph implements ActorGraph {
+    // actor names by id and the reverse lookup
+    private final String[] names;
+    private final Map<String, Integer> ids;
+
+    // neighbors of actor i are neighbors[offsets[i]] up to neighbors[offsets[i+1]], sorted by id
+    private final int[] offsets;
+    private final int[] neighbors;
+
+    // the movie of edge slot e is edgeLabels[e] when it shares one, otherwise edgeLabels[e] is ~k and
+    // sharedLabels[k] holds how many movies it shares, followed by their ids in order
+    private final int[] edgeLabels;
+    private final int[] sharedLabels;
+
+    // movie titles by id
+    private final String[] movies;
+
+    // rankings and indexes built over the graph, each the first time it's asked for
+    private final GraphIndexes indexes = new GraphIndexes(this);
+
+    /**
+     * builds the graph straight from each movie's cast, without making an edge set per pair
+     * @param movieCast map of movie names to the names of the actors in them
+     * @param actors every actor that should be a vertex, including ones with no co-stars
+     */
+    public CompactGraph(Map<String, List<String>> movieCast, Collection<String> actors){
+        this(CastTable.of(movieCast, actors));
+    }
+
+    /**
+     * builds the graph by pairing up every cast, keeping the table's actor and movie ids
+     * @param casts every movie's cast as actor ids
+     */
+    public CompactGraph(CastTable casts){
+        this.names = casts.names();
+        this.ids = new HashMap<>();
+        for (int i = 0; i < names.length; i++){
+            ids.put(names[i], i);
+        }
+        this.movies = casts.movies();
+        int[] castOffsets = casts.offsets();
+        int[] castActors = casts.actors();
+
+        // counts how many (co-star, movie) entries each actor will get
+        int[] counts = new int[names.length + 1];
+        for (int m = 0; m < movies.length; m++){
+            int size = castOffsets[m + 1] - castOffsets[m];
+            for (int k = castOffsets[m]; k < castOffsets[m + 1]; k++){
+                counts[castActors[k] + 1] += size - 1;
+            }
+        }
+        for (int i = 0; i < names.length; i++){
+            counts[i + 1] += counts[i];
+        }
+
+        // packs each co-star and shared movie into one long so a row can be sorted by co-star, then movie
+        long[] entries = new long[counts[names.length]];
+        int[] fill = Arrays.copyOf(counts, names.length);
+        for (int m = 0; m < movies.length; m++){
+            for (int k = castOffsets[m]; k < castOffsets[m + 1]; k++){
+                int u = castActors[k];
+                for (int l = castOffsets[m]; l < castOffsets[m + 1]; l++){
+                    // each cast holds an actor once, so only the actor itself is skipped
+                    if (l != k){
+                        entries[fill[u]++] = ((long) castActors[l] << 32) | m;
+                    }
+                }
+            }
+        }
+
+        // collapses each sorted row into distinct co-stars, each with its run of shared movies
+        this.offsets = new int[names.length + 1];
+        int[] neighborList = new int[entries.length];
+        int[] labelList = new int[entries.length];
+        Labels labels = new Labels(new int[0]);
+        int[] run = new int[movies.length];
+        int edges = 0;
+        for (int u = 0; u < names.length; u++){
+            Arrays.sort(entries, counts[u], fill[u]);
+            offsets[u] = edges;
+            int k = counts[u];
+            while (k < fill[u]){
+                int v = (int) (entries[k] >>> 32);
+                // gathers the co-star's run of movies, dropping repeats of the same movie
+                int length = 0;
+                for (; k < fill[u] && (int) (entries[k] >>> 32) == v; k++){
+                    if (length == 0 || run[length - 1] != (int) entries[k]){
+                        run[length++] = (int) entries[k];
+                    }
+                }
+                neighborList[edges] = v;
+                labelList[edges++] = labels.encode(run, length);
+            }
+        }
+        offsets[names.length] = edges;
+        this.neighbors = Arrays.copyOf(neighborList, edges);
+        this.edgeLabels = Arrays.copyOf(labelList, edges);
+        this.sharedLabels = labels.toArray();
+    }
+
+    /**
+     * wraps arrays that already hold a compact graph, such as ones read back from a snapshot
+     * @param names actor names by id
+     * @param movies movie titles by id
+     * @param offsets row starts into neighbors, one past the last actor included
+     * @param neighbors every actor's co-stars, sorted by id within each row
+     * @param edgeLabels each edge slot's one movie id, or ~k for a movie set starting at sharedLabels[k]
+     * @param sharedLabels movie sets shared by more than one movie, each a count followed by sorted movie ids
+     */
+    public CompactGraph(String[] names, String[] movies, int[] offsets, int[] neighbors, int[] edgeLabels, int[] sharedLabels){
+        this.names = names;
+        this.movies = movies;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.edgeLabels = edgeLabels;
+        this.sharedLabels = sharedLabels;
+        this.ids = new HashMap<>();
+        for (int i = 0; i < names.length; i++){
+            ids.put(names[i], i);
+        }
+    }
+
+    /**
+     * copies an undirected graph with movie set labels into compact form
+     * @param g graph to copy
+     * @return the compact version of g
+     */
+    public static CompactGraph fromGraph(Graph<String, Set<String>> g){
+        // every labeled edge is one shared movie, so the graph can be turned back into casts of two
+        Map<String, List<String>> movieCast = new HashMap<>();
+        List<String> actors = new ArrayList<>();
+        for (String u : g.vertices()){
+            actors.add(u);
+            for (String v : g.outNeighbors(u)){
+                if (u.compareTo(v) < 0){
+                    for (String movie : g.getLabel(u, v)){
+                        if (!movieCast.containsKey(movie)){
+                            movieCast.put(movie, new ArrayList<>());
+                        }
+                        movieCast.get(movie).add(u);
+                        movieCast.get(movie).add(v);
+                    }
+                }
+            }
+        }
+        // a movie with a bigger cast shows up once per pair, so its cast is deduplicated before building
+        for (String movie : movieCast.keySet()){
+            movieCast.put(movie, new ArrayList<>(new LinkedHashSet<>(movieCast.get(movie))));
+        }
+        return new CompactGraph(movieCast, actors);
+    }
+
+    /**
+     * copies the graph with some shared movies added to or removed from co-star edges, leaving every other row as it was
+     * Existing actors and movies keep their ids and new ones are numbered after them, so arrays indexed by id stay valid
+     * An actor whose last co-star goes away stays as a vertex with no edges
+     * @param actors actors that must be vertices afterwards, added if they are new
+     * @param added {actor1, actor2, movie} triples to add to the edge between the two actors
+     * @param removed {actor1, actor2, movie} triples to take off the edge between the two actors
+     * @return the updated graph
+     */
+    public CompactGraph withEdits(Collection<String> actors, List<String[]> added, List<String[]> removed){
+        // numbers the new actors and movies after the existing ones
+        List<String> newNames = new ArrayList<>(Arrays.asList(names));
+        Map<String, Integer> newIds = new HashMap<>(ids);
+        for (String actor : actors){
+            if (!newIds.containsKey(actor)){
+                newIds.put(actor, newNames.size());
+                newNames.add(actor);
+            }
+        }
+        List<String> newMovies = new ArrayList<>(Arrays.asList(movies));
+        Map<String, Integer> movieIds = new HashMap<>();
+        for (int m = 0; m < movies.length; m++){
+            movieIds.put(movies[m], m);
+        }
+
+        // only the rows of actors in an edit are unpacked into co-star -> movies maps
+        Map<Integer, TreeMap<Integer, TreeSet<Integer>>> rows = new HashMap<>();
+        for (int pass = 0; pass < 2; pass++){
+            for (String[] edit : pass == 0 ? removed : added){
+                if (!newIds.containsKey(edit[0]) || !newIds.containsKey(edit[1]) || edit[0].equals(edit[1])){
+                    continue;
+                }
+                // a removal naming a movie the graph doesn't have takes nothing away, and only additions number new movies
+                if (!movieIds.containsKey(edit[2])){
+                    if (pass == 0){
+                        continue;
+                    }
+                    movieIds.put(edit[2], newMovies.size());
+                    newMovies.add(edit[2]);
+                }
+                int u = newIds.get(edit[0]);
+                int v = newIds.get(edit[1]);
+                int m = movieIds.get(edit[2]);
+                // every edge is kept in both directions
+                for (int side = 0; side < 2; side++){
+                    int from = side == 0 ? u : v;
+                    int to = side == 0 ? v : u;
+                    TreeMap<Integer, TreeSet<Integer>> row = unpack(rows, from);
+                    if (pass == 0){
+                        if (row.containsKey(to)){
+                            row.get(to).remove(m);
+                            if (row.get(to).isEmpty()){
+                                row.remove(to);
+                            }
+                        }
+                    }
+                    else{
+                        if (!row.containsKey(to)){
+                            row.put(to, new TreeSet<>());
+                        }
+                        row.get(to).add(m);
+                    }
+                }
+            }
+        }
+
+        // sizes the new arrays from the old ones, swapping the unpacked rows' old sizes for their new ones
+        int n = newNames.size();
+        int edgeCount = neighbors.length;
+        for (int u : rows.keySet()){
+            if (u < names.length){
+                edgeCount -= offsets[u + 1] - offsets[u];
+            }
+            edgeCount += rows.get(u).size();
+        }
+
+        // existing movie sets keep their place, so untouched rows can keep their labels as they are
+        int[] newOffsets = new int[n + 1];
+        int[] newNeighbors = new int[edgeCount];
+        int[] newEdgeLabels = new int[edgeCount];
+        Labels labels = new Labels(sharedLabels);
+        int[] run = new int[newMovies.size()];
+        int edges = 0;
+        for (int u = 0; u < n; u++){
+            newOffsets[u] = edges;
+            if (rows.containsKey(u)){
+                for (Map.Entry<Integer, TreeSet<Integer>> entry : rows.get(u).entrySet()){
+                    int length = 0;
+                    for (int m : entry.getValue()){
+                        run[length++] = m;
+                    }
+                    newNeighbors[edges] = entry.getKey();
+                    newEdgeLabels[edges++] = labels.encode(run, length);
+                }
+            }
+            else if (u < names.length){
+                // an untouched row and its labels are copied over whole
+                int rowLength = offsets[u + 1] - offsets[u];
+                System.arraycopy(neighbors, offsets[u], newNeighbors, edges, rowLength);
+                System.arraycopy(edgeLabels, offsets[u], newEdgeLabels, edges, rowLength);
+                edges += rowLength;
+            }
+        }
+        newOffsets[n] = edges;
+        return new CompactGraph(newNames.toArray(new String[0]), newMovies.toArray(new String[0]), newOffsets, newNeighbors, newEdgeLabels, labels.toArray());
+    }
+
+    // unpacks one actor's row into a co-star -> movie ids map the first time an edit touches it
+    private TreeMap<Integer, TreeSet<Integer>> unpack(Map<Integer, TreeMap<Integer, TreeSet<Integer>>> rows, int u){
+        if (!rows.containsKey(u)){
+            TreeMap<Integer, TreeSet<Integer>> row = new TreeMap<>();
+            if (u < names.length){
+                for (int k = offsets[u]; k < offsets[u + 1]; k++){
+                    TreeSet<Integer> movieset = new TreeSet<>();
+                    for (int m : labelIds(k)){
+                        movieset.add(m);
+                    }
+                    row.put(neighbors[k], movieset);
+                }
+            }
+            rows.put(u, row);
+        }
+        return rows.get(u);
+    }
+
+    /**
+     * @param v actor name
+     * @return the dense id of v, or -1 if v isn't in the graph
+     */
+    public int indexOf(String v){
+        Integer id = ids.get(v);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id dense actor id
+     * @return the actor name with that id
+     */
+    public String name(int id){
+        return names[id];
+    }
+
+    /**
+     * @param movie dense movie id
+     * @return the title of that movie
+     */
+    public String movie(int movie){
+        return movies[movie];
+    }
+
+    /**
+     * @return the number of distinct movies used as labels
+     */
+    public int numMovies(){
+        return movies.length;
+    }
+
+    /**
+     * row starts into neighbors(), one past the last actor included; callers must not modify it
+     */
+    public int[] offsets(){
+        return offsets;
+    }
+
+    /**
+     * every actor's co-stars, back to back; callers must not modify it
+     */
+    public int[] neighbors(){
+        return neighbors;
+    }
+
+    /**
+     * each edge slot's one movie id, or ~k for a set in sharedLabels() starting at k; callers must not modify it
+     */
+    public int[] edgeLabels(){
+        return edgeLabels;
+    }
+
+    /**
+     * every distinct set of more than one shared movie, each a count followed by sorted movie ids; callers must not modify it
+     */
+    public int[] sharedLabels(){
+        return sharedLabels;
+    }
+
+    /**
+     * @param edge slot in neighbors()
+     * @return a new array of the shared movie ids of that edge, in id order
+     */
+    public int[] labelIds(int edge){
+        int label = edgeLabels[edge];
+        if (label >= 0){
+            return new int[]{label};
+        }
+        return Arrays.copyOfRange(sharedLabels, ~label + 1, ~label + 1 + sharedLabels[~label]);
+    }
+
+    /**
+     * @param u actor id
+     * @param v actor id
+     * @return the slot of edge u-v in neighbors(), or -1 if they never shared a movie
+     */
+    public int edgeIndex(int u, int v){
+        int found = Arrays.binarySearch(neighbors, offsets[u], offsets[u + 1], v);
+        return found < 0 ? -1 : found;
+    }
+
+    /**
+     * decodes the shared movies of one edge slot into titles
+     * @param edge slot in neighbors()
+     * @return the set of shared movie titles
+     */
+    public Set<String> label(int edge){
+        Set<String> movieset = new HashSet<>();
+        for (int m : labelIds(edge)){
+            movieset.add(movies[m]);
+        }
+        return movieset;
+    }
+
+    public int bfs(int source, int[] dist, int[] parent, int[] queue){
+        return GraphLibrary.bfs(this, source, dist, parent, queue);
+    }
+
+    public Set<String> sharedMovies(int u, int v){
+        int edge = edgeIndex(u, v);
+        return edge < 0 ? new HashSet<>() : label(edge);
+    }
+
+    public int[] degrees(){
+        int[] degrees = new int[names.length];
+        for (int u = 0; u < names.length; u++){
+            degrees[u] = offsets[u + 1] - offsets[u];
+        }
+        return degrees;
+    }
+
+    public GraphIndexes indexes(){
+        return indexes;
+    }
+
+    // wraps one row of the neighbor array as names
+    private Iterable<String> row(int u){
+        List<String> row = new ArrayList<>(offsets[u + 1] - offsets[u]);
+        for (int k = offsets[u]; k < offsets[u + 1]; k++){
+            row.add(names[neighbors[k]]);
+        }
+        return row;
+    }
+
+    public int numVertices(){
+        return names.length;
+    }
+
+    public int numEdges(){
+        return neighbors.length;
+    }
+
+    public Iterable<String> vertices(){
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    public boolean hasVertex(String v){
+        return ids.containsKey(v);
+    }
+
+    public boolean hasEdge(String u, String v){
+        return hasVertex(u) && hasVertex(v) && edgeIndex(id(u), id(v)) >= 0;
+    }
+
+    public Set<String> getLabel(String u, String v){
+        if (!hasVertex(u) || !hasVertex(v)){
+            return null;
+        }
+        int edge = edgeIndex(id(u), id(v));
+        return edge < 0 ? null : label(edge);
+    }
+
+    public int outDegree(String v){
+        int u = id(v);
+        return offsets[u + 1] - offsets[u];
+    }
+
+    // every edge goes both ways, so in and out are the same
+    public int inDegree(String v){
+        return outDegree(v);
+    }
+
+    public Iterable<String> outNeighbors(String v){
+        return row(id(v));
+    }
+
+    public Iterable<String> inNeighbors(String v){
+        return row(id(v));
+    }
+
+    public void insertVertex(String v){
+        throw new UnsupportedOperationException("compact graphs are immutable");
+    }
+
+    public void insertDirected(String u, String v, Set<String> e){
+        throw new UnsupportedOperationException("compact graphs are immutable");
+    }
+
+    public void insertUndirected(String u, String v, Set<String> e){
+        throw new UnsupportedOperationException("compact graphs are immutable");
+    }
+
+    public void removeVertex(String v){
+        throw new UnsupportedOperationException("compact graphs are immutable");
+    }
+
+    public void removeDirected(String u, String v){
+        throw new UnsupportedOperationException("compact graphs are immutable");
+    }
+
+    public void removeUndirected(String u, String v){
+        throw new UnsupportedOperationException("compact graphs are immutable");
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder result = new StringBuilder("Vertices: " + Arrays.toString(names) + "\nOut edges: {");
+        for (int u = 0; u < names.length; u++){
+            result.append(u == 0 ? "" : ", ").append(names[u]).append("={");
+            for (int k = offsets[u]; k < offsets[u + 1]; k++){
+                result.append(k == offsets[u] ? "" : ", ").append(names[neighbors[k]]).append("=").append(label(k));
+            }
+            result.append("}");
+        }
+        return result.append("}").toString();
+    }
+
+    // builds the shared label array, handing out one place per distinct set of movies
+    private static class Labels {
+        // sets stored so far, back to back, and where each distinct set starts
+        private int[] shared;
+        private int size;
+        private final Map<List<Integer>, Integer> starts = new HashMap<>();
+
+        // starts from the sets of an existing graph, so labels pointing into them stay valid
+        Labels(int[] existing){
+            this.shared = Arrays.copyOf(existing, Math.max(16, existing.length));
+            this.size = existing.length;
+            for (int k = 0; k < existing.length; k += existing[k] + 1){
+                starts.put(key(existing, k + 1, existing[k]), k);
+            }
+        }
+
+        // the label of a sorted run of movie ids: the id itself for one movie, otherwise ~start of its stored set
+        int encode(int[] run, int length){
+            if (length == 1){
+                return run[0];
+            }
+            List<Integer> key = key(run, 0, length);
+            Integer start = starts.get(key);
+            if (start == null){
+                start = size;
+                if (size + length + 1 > shared.length){
+                    shared = Arrays.copyOf(shared, Math.max(shared.length * 2, size + length + 1));
+                }
+                shared[size++] = length;
+                System.arraycopy(run, 0, shared, size, length);
+                size += length;
+                starts.put(key, start);
+            }
+            return ~start;
+        }
+
+        int[] toArray(){
+            return Arrays.copyOf(shared, size);
+        }
+
+        private static List<Integer> key(int[] ids, int from, int length){
+            List<Integer> key = new ArrayList<>(length);
+            for (int k = from; k < from + length; k++){
+                key.add(ids[k]);
+            }
+            return key;
+        }
+    }
+}
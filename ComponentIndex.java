@@ -0,0 +1,145 @@
+import java.util.*;
+
+/**
+ * Connected components of a actor graph, labeled once per graph with union-find
+ * Answers who is unreachable from an actor and whether two actors are connected without running bfs
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public class ComponentIndex {
+    // graph the index was built over
+    private final ActorGraph graph;
+
+    // dense component id of each actor, and the number of actors in each component
+    private final int[] component;
+    private final int[] sizes;
+
+    /**
+     *
+     * @param graph actor graph to label
+     */
+    public ComponentIndex(ActorGraph graph){
+        int n = graph.numVertices();
+
+        // every actor starts as its own root, and each link joins two roots, the smaller id becoming the root
+        int[] root = new int[n];
+        for (int v = 0; v < n; v++){
+            root[v] = v;
+        }
+        if (graph instanceof BipartiteGraph){
+            // a movie links its whole cast, so joining everyone to its first actor is enough
+            BipartiteGraph bipartite = (BipartiteGraph) graph;
+            int[] movieOffsets = bipartite.movieOffsets();
+            int[] movieActors = bipartite.movieActors();
+            for (int m = 0; m < bipartite.numMovies(); m++){
+                for (int k = movieOffsets[m] + 1; k < movieOffsets[m + 1]; k++){
+                    union(root, movieActors[movieOffsets[m]], movieActors[k]);
+                }
+            }
+        }
+        else {
+            // a year view links the same arrays, less the edges outside its years
+            YearView view = graph instanceof YearView ? (YearView) graph : null;
+            CompactGraph compact = view != null ? view.graph() : (CompactGraph) graph;
+            int[] offsets = compact.offsets();
+            int[] neighbors = compact.neighbors();
+            for (int u = 0; u < n; u++){
+                for (int k = offsets[u]; k < offsets[u + 1]; k++){
+                    // each edge is stored both ways, so one direction is enough
+                    if (neighbors[k] > u && (view == null || view.keeps(k))){
+                        union(root, u, neighbors[k]);
+                    }
+                }
+            }
+        }
+
+        // numbers the components in order of their smallest actor id, so labels are repeatable
+        int[] component = new int[n];
+        int count = 0;
+        for (int v = 0; v < n; v++){
+            int r = find(root, v);
+            component[v] = r == v ? count++ : component[r];
+        }
+        int[] sizes = new int[count];
+        for (int v = 0; v < n; v++){
+            sizes[component[v]]++;
+        }
+        this.graph = graph;
+        this.component = component;
+        this.sizes = sizes;
+    }
+
+    // joins the sets of two actors under the smaller root
+    private static void union(int[] root, int u, int v){
+        int a = find(root, u);
+        int b = find(root, v);
+        if (a != b){
+            root[Math.max(a, b)] = Math.min(a, b);
+        }
+    }
+
+    // follows parents up to the root, halving the path along the way
+    private static int find(int[] root, int v){
+        while (root[v] != v){
+            root[v] = root[root[v]];
+            v = root[v];
+        }
+        return v;
+    }
+
+    /**
+     * @return the graph this index labels
+     */
+    public ActorGraph graph(){
+        return graph;
+    }
+
+    /**
+     * @return number of connected components, isolated actors included
+     */
+    public int numComponents(){
+        return sizes.length;
+    }
+
+    /**
+     * @param id actor id
+     * @return the component the actor belongs to
+     */
+    public int component(int id){
+        return component[id];
+    }
+
+    /**
+     * @param id actor id
+     * @return number of actors in the actor's component, itself included
+     */
+    public int componentSize(int id){
+        return sizes[component[id]];
+    }
+
+    /**
+     * @param a actor name
+     * @param b actor name
+     * @return whether there is any path between the two actors, false if either is unknown
+     */
+    public boolean connected(String a, String b){
+        int u = graph.indexOf(a);
+        int v = graph.indexOf(b);
+        return u >= 0 && v >= 0 && component[u] == component[v];
+    }
+
+    /**
+     * @param actor actor name
+     * @return a set of the actors that are infinitely far from actor
+     */
+    public Set<String> unreachableFrom(String actor){
+        Set<String> missingVertices = new HashSet<String>();
+        int id = graph.indexOf(actor);
+        for (int v = 0; v < component.length; v++){
+            if (id < 0 || component[v] != component[id]){
+                missingVertices.add(graph.name(v));
+            }
+        }
+        return missingVertices;
+    }
+}
@@ -0,0 +1,159 @@
+import java.util.*;
+
+/**
+ * Every actor's co-star count, sorted once per graph so the d command is a binary search and a slice
+ * Also keeps a histogram of the degrees for summary statistics about the graph
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public class DegreeIndex {
+    // graph the index was built over
+    private final ActorGraph graph;
+
+    // actor ids from lowest degree to highest, ties broken by id, and the degree at each position
+    private final int[] order;
+    private final int[] degrees;
+
+    // number of actors with each degree, from 0 up to the highest degree
+    private final int[] histogram;
+
+    // sum of every actor's degree
+    private final long total;
+
+    /**
+     *
+     * @param graph actor graph to index
+     */
+    public DegreeIndex(ActorGraph graph){
+        int n = graph.numVertices();
+        int[] degreeOf = graph.degrees();
+        int max = 0;
+        long total = 0;
+        for (int v = 0; v < n; v++){
+            max = Math.max(max, degreeOf[v]);
+            total += degreeOf[v];
+        }
+
+        // counting sort by degree, which keeps ids in order within each degree
+        int[] histogram = new int[max + 1];
+        for (int v = 0; v < n; v++){
+            histogram[degreeOf[v]]++;
+        }
+        int[] start = new int[max + 2];
+        for (int d = 0; d <= max; d++){
+            start[d + 1] = start[d] + histogram[d];
+        }
+        int[] order = new int[n];
+        int[] degrees = new int[n];
+        for (int v = 0; v < n; v++){
+            int d = degreeOf[v];
+            degrees[start[d]] = d;
+            order[start[d]++] = v;
+        }
+        this.graph = graph;
+        this.order = order;
+        this.degrees = degrees;
+        this.histogram = histogram;
+        this.total = total;
+    }
+
+    // first position whose degree is at least d
+    private int lowerBound(int d){
+        int lo = 0;
+        int hi = degrees.length;
+        while (lo < hi){
+            int mid = (lo + hi) >>> 1;
+            if (degrees[mid] < d){
+                lo = mid + 1;
+            }
+            else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return the graph this index covers
+     */
+    public ActorGraph graph(){
+        return graph;
+    }
+
+    /**
+     * @param low lowest degree to include
+     * @param high highest degree to include
+     * @return names of the actors with degree between low and high, lowest degree first
+     */
+    public List<String> between(int low, int high){
+        List<String> actors = new ArrayList<>();
+        if (low > high){
+            return actors;
+        }
+        int end = high == Integer.MAX_VALUE ? degrees.length : lowerBound(high + 1);
+        for (int i = lowerBound(low); i < end; i++){
+            actors.add(graph.name(order[i]));
+        }
+        return actors;
+    }
+
+    /**
+     * @param low lowest degree to include
+     * @param high highest degree to include
+     * @return how many actors have degree between low and high
+     */
+    public int countBetween(int low, int high){
+        if (low > high){
+            return 0;
+        }
+        int end = high == Integer.MAX_VALUE ? degrees.length : lowerBound(high + 1);
+        return end - lowerBound(low);
+    }
+
+    /**
+     * @param count how many actors to return
+     * @return ids of the count actors with the most co-stars, most first, ties going to the higher id
+     */
+    public int[] highest(int count){
+        int[] ids = new int[Math.max(0, Math.min(count, order.length))];
+        for (int i = 0; i < ids.length; i++){
+            ids[i] = order[order.length - 1 - i];
+        }
+        return ids;
+    }
+
+    /**
+     * @return a copy of the histogram, where entry d is the number of actors with d co-stars
+     */
+    public int[] histogram(){
+        return histogram.clone();
+    }
+
+    /**
+     * @return the lowest degree of any actor, 0 for an empty graph
+     */
+    public int minDegree(){
+        return degrees.length == 0 ? 0 : degrees[0];
+    }
+
+    /**
+     * @return the highest degree of any actor, 0 for an empty graph
+     */
+    public int maxDegree(){
+        return histogram.length - 1;
+    }
+
+    /**
+     * @return the average number of co-stars per actor
+     */
+    public double meanDegree(){
+        return (double) total / degrees.length;
+    }
+
+    /**
+     * @return the degree of the middle actor when sorted by degree, the lower middle for an even count
+     */
+    public int medianDegree(){
+        return degrees.length == 0 ? 0 : degrees[(degrees.length - 1) / 2];
+    }
+}
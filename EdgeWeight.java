@@ -0,0 +1,56 @@
+/**
+ * Cost of stepping along one co-star edge of a compact graph, for weighted path queries
+ * A negative cost leaves the edge out entirely, which is how a range of years filters edges without copying the graph
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public interface EdgeWeight {
+    /**
+     * @param edge slot in the graph's neighbors()
+     * @return the cost of the edge, at least 0, or negative if the edge can't be used
+     */
+    int weight(int edge);
+
+    /**
+     * @return every edge costs one, so weighted paths are the usual fewest-step paths
+     */
+    static EdgeWeight hops(){
+        return edge -> 1;
+    }
+
+    /**
+     * favors collaborations that happened recently, each decade between an edge's newest movie and now adding one to its cost
+     * @param years release years of the graph's movies
+     * @param now year counted back from, usually the latest year of any movie
+     * @return the recency weight
+     */
+    static EdgeWeight recent(MovieYears years, int now){
+        return edge -> {
+            // a collaboration with no known year counts as the oldest one there is
+            int newest = years.newest(edge);
+            return 1 + (now - (newest > 0 ? Math.min(newest, now) : years.earliest())) / 10;
+        };
+    }
+
+    /**
+     * favors co-stars who were in more than one movie together, by making edges backed by a single movie cost more
+     * @param graph compact graph whose edges are weighed
+     * @param penalty extra cost of an edge backed by a single shared movie
+     * @return the single movie weight
+     */
+    static EdgeWeight singles(CompactGraph graph, int penalty){
+        int[] labels = graph.edgeLabels();
+        // only edges sharing several movies point into the shared labels, so a label of 0 or more is one movie
+        return edge -> labels[edge] >= 0 ? 1 + penalty : 1;
+    }
+
+    /**
+     * @param years release years of the graph's movies
+     * @param low earliest release year allowed
+     * @param high latest release year allowed
+     * @return this weight, with edges that shared no movie between low and high left out
+     */
+    default EdgeWeight between(MovieYears years, int low, int high){
+        return edge -> years.anyBetween(edge, low, high) ? weight(edge) : -1;
+    }
+}
@@ -0,0 +1,141 @@
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * The rankings and indexes built over one actor graph, each worked out the first time it's asked for
+ * Every graph keeps its own in a final field, so they go when the graph does, and once built an index is handed out
+ * with a single read and no lock, however many sessions ask for it at once
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public class GraphIndexes {
+    // graph the indexes are built over
+    private final ActorGraph graph;
+
+    // exact centrality ranking, computed or read back from a snapshot
+    private final AtomicReference<CentralityTable> centrality = new AtomicReference<>();
+
+    // co-star counts, sorted
+    private final AtomicReference<DegreeIndex> degree = new AtomicReference<>();
+
+    // connected components
+    private final AtomicReference<ComponentIndex> components = new AtomicReference<>();
+
+    // release year of each movie, for the co-star graph
+    private final AtomicReference<MovieYears> years = new AtomicReference<>();
+
+    // depth limited searches and the kept frontiers of the highest degree actors
+    private final AtomicReference<Neighborhood> neighborhood = new AtomicReference<>();
+
+    // last estimated ranking, along with the settings it was estimated with
+    private final AtomicReference<Estimate> estimate = new AtomicReference<>();
+
+    // an estimated ranking and the pivots and refined actors it used
+    private static class Estimate {
+        private final int pivots;
+        private final int refine;
+        private final CentralityTable table;
+
+        Estimate(int pivots, int refine, CentralityTable table){
+            this.pivots = pivots;
+            this.refine = refine;
+            this.table = table;
+        }
+    }
+
+    /**
+     *
+     * @param graph actor graph the indexes are built over
+     */
+    public GraphIndexes(ActorGraph graph){
+        this.graph = graph;
+    }
+
+    /**
+     * @return the exact centrality table, computed across cores the first time it's asked for
+     */
+    public CentralityTable centrality(){
+        return get("centrality", centrality, ParallelCentrality::compute);
+    }
+
+    /**
+     * @return the exact centrality table if it has been computed or remembered, otherwise null
+     */
+    public CentralityTable cachedCentrality(){
+        return centrality.get();
+    }
+
+    /**
+     * keeps a table computed elsewhere, such as one read from a snapshot, as the graph's exact centrality
+     * @param table table ranking this graph
+     */
+    public void remember(CentralityTable table){
+        centrality.set(table);
+    }
+
+    /**
+     * @param pivots about how many pivots to sample across the graph
+     * @param refine how many actors at each end of the ranking to compute exactly
+     * @return the estimated table, reused while the settings stay the same
+     */
+    public CentralityTable approximate(int pivots, int refine){
+        Estimate last = estimate.get();
+        boolean hit = last != null && last.pivots == pivots && last.refine == refine;
+        Metrics.lookup("centrality", hit);
+        if (!hit){
+            synchronized (estimate){
+                last = estimate.get();
+                if (last == null || last.pivots != pivots || last.refine != refine){
+                    last = new Estimate(pivots, refine, ApproximateCentrality.estimate(graph, pivots, refine, graph.numVertices()));
+                    estimate.set(last);
+                }
+            }
+        }
+        return last.table;
+    }
+
+    /**
+     * @return every actor's co-star count, sorted the first time it's asked for
+     */
+    public DegreeIndex degree(){
+        return get("degree", degree, DegreeIndex::new);
+    }
+
+    /**
+     * @return the graph's connected components, labeled the first time they're asked for
+     */
+    public ComponentIndex components(){
+        return get("components", components, ComponentIndex::new);
+    }
+
+    /**
+     * @return the release years of the graph's movies, read from their titles the first time they're asked for
+     * @throws ClassCastException if the graph isn't a CompactGraph, the only graph whose edges carry movie ids
+     */
+    public MovieYears years(){
+        return get("years", years, graph -> new MovieYears((CompactGraph) graph));
+    }
+
+    /**
+     * @return the k hop search over the graph, set up the first time it's asked for with DEFAULT_HUBS hubs
+     */
+    public Neighborhood neighborhood(){
+        return get("neighborhood", neighborhood, graph -> new Neighborhood(graph, Neighborhood.DEFAULT_HUBS));
+    }
+
+    // reads an index, building it under the slot's lock only if no other thread got there first
+    private <T> T get(String name, AtomicReference<T> slot, Function<ActorGraph, T> build){
+        T index = slot.get();
+        Metrics.lookup(name, index != null);
+        if (index == null){
+            synchronized (slot){
+                index = slot.get();
+                if (index == null){
+                    index = build.apply(graph);
+                    slot.set(index);
+                }
+            }
+        }
+        return index;
+    }
+}
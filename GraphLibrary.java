@@ -124,20 +124,364 @@ public class GraphLibrary{
      */
     public static <V,E> double averageSeparationHelper(Graph<V,E> tree, V root, double averageseperation){
         double avgsep = averageseperation;
-        // starts at root
-        V current = root;
+        // walks the tree a level at a time from the root instead of recursing, so long chains can't overflow the stack
+        List<V> level = new ArrayList<>();
+        level.add(root);
+        double depth = averageseperation;
+        while (!level.isEmpty()){
+            List<V> children = new ArrayList<>();
+            for (V current : level){
+                // every child pointing to this vertex is one step further from the root
+                for (V neighbour : tree.inNeighbors(current)){
+                    avgsep += depth + 1;
+                    children.add(neighbour);
+                }
+            }
+            level = children;
+            depth++;
+        }
+        return avgsep;
+    }
+
+    /**
+     * bfs over a compact graph that writes into reusable arrays instead of building a path tree
+     * @param g compact graph to be traversed
+     * @param source id of the vertex to find shortest paths from
+     * @param dist filled with each vertex's distance from source, -1 if unreachable
+     * @param parent filled with the vertex each one was discovered from, -1 for source and unreachable vertices
+     * @param queue scratch space of at least g.numVertices() ints
+     * @return the number of vertices reached, including source
+     */
+    public static int bfs(CompactGraph g, int source, int[] dist, int[] parent, int[] queue){
+        int[] offsets = g.offsets();
+        int[] neighbors = g.neighbors();
+        Arrays.fill(dist, 0, g.numVertices(), -1);
+        Arrays.fill(parent, 0, g.numVertices(), -1);
+
+        // every vertex is enqueued at most once, so head and tail never wrap around the array
+        int head = 0;
+        int tail = 0;
+        long edges = 0;
+        queue[tail++] = source;
+        dist[source] = 0;
+        while (head < tail){
+            int u = queue[head++];
+            edges += offsets[u + 1] - offsets[u];
+            for (int k = offsets[u]; k < offsets[u + 1]; k++){
+                int v = neighbors[k];
+                // if neighbor not visited, then neighbor is discovered from this vertex
+                if (dist[v] < 0){
+                    dist[v] = dist[u] + 1;
+                    parent[v] = u;
+                    queue[tail++] = v;
+                }
+            }
+        }
+        Metrics.bfs(tail, edges);
+        return tail;
+    }
+
+    /**
+     * bfs over an actor to movie graph, stepping from actors to their movies and from movies to their casts
+     * Distances count movie layers, so each is half the layers between actors, the same as the co-star graph's,
+     * and each actor's newly found co-stars are queued in id order so parents match the co-star graph's bfs too
+     * @param g bipartite graph to be traversed
+     * @param source id of the actor to find shortest paths from
+     * @param dist filled with each actor's distance from source, -1 if unreachable
+     * @param parent filled with the actor each one was discovered from, -1 for source and unreachable actors
+     * @param queue scratch space of at least g.numVertices() ints
+     * @param seenMovies g.numMovies() flags, all false, marking each movie once its cast has been passed through
+     * @return the number of actors reached, including source
+     */
+    public static int bfs(BipartiteGraph g, int source, int[] dist, int[] parent, int[] queue, boolean[] seenMovies){
+        int[] actorOffsets = g.actorOffsets();
+        int[] actorMovies = g.actorMovies();
+        int[] movieOffsets = g.movieOffsets();
+        int[] movieActors = g.movieActors();
+        Arrays.fill(dist, 0, g.numVertices(), -1);
+        Arrays.fill(parent, 0, g.numVertices(), -1);
 
-                // if the vertex has no more children pointing to it, return the sum of the distances
-                if (tree.inDegree(current) == 0){
-                    return avgsep;
+        int head = 0;
+        int tail = 0;
+        long credits = 0;
+        queue[tail++] = source;
+        dist[source] = 0;
+        while (head < tail){
+            int u = queue[head++];
+            int found = tail;
+            for (int k = actorOffsets[u]; k < actorOffsets[u + 1]; k++){
+                int m = actorMovies[k];
+                // a movie's whole cast is found the first time it's reached, so it never needs another look
+                if (seenMovies[m]){
+                    continue;
                 }
-                // if the vertex has a child, recursively find the distance
-                else{
-                    for(V neighbour: tree.inNeighbors(current)){
-                        avgsep = avgsep + averageSeparationHelper(tree, neighbour, averageseperation+1);
+                seenMovies[m] = true;
+                credits += movieOffsets[m + 1] - movieOffsets[m];
+                for (int c = movieOffsets[m]; c < movieOffsets[m + 1]; c++){
+                    int v = movieActors[c];
+                    if (dist[v] < 0){
+                        dist[v] = dist[u] + 1;
+                        parent[v] = u;
+                        queue[tail++] = v;
                     }
                 }
-        return avgsep;
+            }
+            Arrays.sort(queue, found, tail);
+        }
+        Metrics.bfs(tail, credits);
+        return tail;
+    }
+
+    /**
+     * dijkstra over a compact graph with a cost on every edge, keeping the frontier in an indexed binary heap of ints
+     * Edges costing less than 0 are passed over, so a weight can also leave edges out, like one limited to a range of years
+     * @param g compact graph to be traversed
+     * @param source id of the vertex to find cheapest paths from
+     * @param weight cost of each edge slot
+     * @param dist filled with each vertex's total cost from source, -1 if unreachable
+     * @param parent filled with the vertex each one was reached from, -1 for source and unreachable vertices
+     * @param heap scratch space of at least g.numVertices() ints
+     * @param position scratch space of at least g.numVertices() ints
+     * @return the number of vertices reached, including source
+     */
+    public static int dijkstra(CompactGraph g, int source, EdgeWeight weight, int[] dist, int[] parent, int[] heap, int[] position){
+        int[] offsets = g.offsets();
+        int[] neighbors = g.neighbors();
+        Arrays.fill(dist, 0, g.numVertices(), -1);
+        Arrays.fill(parent, 0, g.numVertices(), -1);
+        // where each vertex sits in the heap, -1 before it's reached and again once its cost is final
+        Arrays.fill(position, 0, g.numVertices(), -1);
+
+        int size = 0;
+        int reached = 0;
+        long edges = 0;
+        dist[source] = 0;
+        heap[size] = source;
+        position[source] = size++;
+        while (size > 0){
+            // takes the cheapest vertex off the top, moving the last one up to take its place
+            int u = heap[0];
+            size--;
+            if (size > 0){
+                heap[0] = heap[size];
+                position[heap[0]] = 0;
+                siftDown(heap, position, dist, 0, size);
+            }
+            position[u] = -1;
+            reached++;
+            edges += offsets[u + 1] - offsets[u];
+            for (int k = offsets[u]; k < offsets[u + 1]; k++){
+                int cost = weight.weight(k);
+                if (cost < 0){
+                    continue;
+                }
+                int v = neighbors[k];
+                int d = dist[u] + cost;
+                // a new vertex joins the heap, and one still on it moves up if this way is cheaper
+                if (dist[v] < 0){
+                    dist[v] = d;
+                    parent[v] = u;
+                    heap[size] = v;
+                    position[v] = size;
+                    siftUp(heap, position, dist, size++);
+                }
+                else if (position[v] >= 0 && d < dist[v]){
+                    dist[v] = d;
+                    parent[v] = u;
+                    siftUp(heap, position, dist, position[v]);
+                }
+            }
+        }
+        Metrics.bfs(reached, edges);
+        return reached;
+    }
+
+    // whether heap vertex a comes before b, the cheaper first and the lower id on a tie so paths are repeatable
+    private static boolean before(int[] dist, int a, int b){
+        return dist[a] < dist[b] || (dist[a] == dist[b] && a < b);
+    }
+
+    // moves the vertex at index i up until its parent comes before it
+    private static void siftUp(int[] heap, int[] position, int[] dist, int i){
+        int v = heap[i];
+        while (i > 0 && before(dist, v, heap[(i - 1) / 2])){
+            heap[i] = heap[(i - 1) / 2];
+            position[heap[i]] = i;
+            i = (i - 1) / 2;
+        }
+        heap[i] = v;
+        position[v] = i;
+    }
+
+    // moves the vertex at index i down until both its children come after it
+    private static void siftDown(int[] heap, int[] position, int[] dist, int i, int size){
+        int v = heap[i];
+        while (2 * i + 1 < size){
+            int child = 2 * i + 1;
+            if (child + 1 < size && before(dist, heap[child + 1], heap[child])){
+                child++;
+            }
+            if (!before(dist, heap[child], v)){
+                break;
+            }
+            heap[i] = heap[child];
+            position[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = v;
+        position[v] = i;
+    }
+
+    /**
+     *
+     * @param parent parent array filled by bfs
+     * @param v find path from v to the source of the bfs
+     * @return ids on the shortest path, starting next to the source and ending at v; empty for the source or an unreachable v
+     */
+    public static int[] getPath(int[] parent, int v){
+        // counts the steps first so the path can be filled back to front without shifting
+        int length = 0;
+        for (int current = v; parent[current] >= 0; current = parent[current]){
+            length++;
+        }
+        int[] path = new int[length];
+        int current = v;
+        for (int i = length - 1; i >= 0; i--){
+            path[i] = current;
+            current = parent[current];
+        }
+        return path;
+    }
+
+    /**
+     *
+     * @param g compact graph the bfs ran over
+     * @param dist distance array filled by bfs
+     * @return a set of the vertices that are infinitely far from the source
+     */
+    public static Set<String> missingVertices(ActorGraph g, int[] dist){
+        Set<String> missingVertices = new HashSet<String>();
+        for (int v = 0; v < g.numVertices(); v++){
+            if (dist[v] < 0){
+                missingVertices.add(g.name(v));
+            }
+        }
+        return missingVertices;
+    }
+
+    /**
+     *
+     * @param dist distance array filled by bfs
+     * @param n number of vertices in the graph the bfs ran over
+     * @return a double of the average distances from each reachable vertex to the source
+     */
+    public static double averageSeparation(int[] dist, int n){
+        // adds up the distances of every reached vertex except the source itself
+        double total = 0;
+        int reached = 0;
+        for (int v = 0; v < n; v++){
+            if (dist[v] > 0){
+                total += dist[v];
+                reached++;
+            }
+        }
+        return total / reached;
+    }
+
+    /**
+     * bidirectional bfs between two vertices, growing whichever side has the smaller frontier until they meet
+     * @param g graph to be traversed
+     * @param a vertex the path starts at
+     * @param b vertex the path ends at
+     * @param <V> vertex of any type
+     * @param <E> edge of any type
+     * @return the vertices on a shortest path from a to b, both included; empty if they aren't connected
+     */
+    public static <V,E> List<V> shortestPath(Graph<V,E> g, V a, V b){
+        List<V> path = new ArrayList<V>();
+        if (!g.hasVertex(a) || !g.hasVertex(b)){
+            return path;
+        }
+        if (a.equals(b)){
+            path.add(a);
+            return path;
+        }
+        // each side remembers how far it is to every vertex it has seen and where it came from
+        Map<V,Integer> distA = new HashMap<V,Integer>();
+        Map<V,Integer> distB = new HashMap<V,Integer>();
+        Map<V,V> parentA = new HashMap<V,V>();
+        Map<V,V> parentB = new HashMap<V,V>();
+        List<V> frontierA = new ArrayList<V>();
+        List<V> frontierB = new ArrayList<V>();
+        distA.put(a, 0);
+        distB.put(b, 0);
+        frontierA.add(a);
+        frontierB.add(b);
+
+        while (!frontierA.isEmpty() && !frontierB.isEmpty()){
+            // grows the cheaper side by one whole level
+            boolean fromA = frontierA.size() <= frontierB.size();
+            List<V> frontier = fromA ? frontierA : frontierB;
+            Map<V,Integer> dist = fromA ? distA : distB;
+            Map<V,Integer> otherDist = fromA ? distB : distA;
+            Map<V,V> parent = fromA ? parentA : parentB;
+
+            // keeps the shortest meeting across the whole level, since an earlier meeting can still be beaten
+            V meetNear = null;
+            V meetFar = null;
+            int best = Integer.MAX_VALUE;
+            List<V> nextFrontier = new ArrayList<V>();
+            for (V u : frontier){
+                for (V v : g.outNeighbors(u)){
+                    if (otherDist.containsKey(v) && dist.get(u) + 1 + otherDist.get(v) < best){
+                        best = dist.get(u) + 1 + otherDist.get(v);
+                        meetNear = u;
+                        meetFar = v;
+                    }
+                    if (!dist.containsKey(v)){
+                        dist.put(v, dist.get(u) + 1);
+                        parent.put(v, u);
+                        nextFrontier.add(v);
+                    }
+                }
+            }
+
+            if (meetNear != null){
+                // stitches the two halves together at the meeting edge, always reading from a to b
+                V endA = fromA ? meetNear : meetFar;
+                V endB = fromA ? meetFar : meetNear;
+                for (V current = endA; current != null; current = parentA.get(current)){
+                    path.add(0, current);
+                }
+                for (V current = endB; current != null; current = parentB.get(current)){
+                    path.add(current);
+                }
+                return path;
+            }
+            if (fromA){
+                frontierA = nextFrontier;
+            }
+            else{
+                frontierB = nextFrontier;
+            }
+        }
+        return path;
+    }
+
+    /**
+     *
+     * @param g graph the path was found in
+     * @param path consecutive vertices, such as from shortestPath
+     * @param <V> vertex of any type
+     * @param <E> edge of any type
+     * @return the label of each edge along the path, one fewer than the number of vertices
+     */
+    public static <V,E> List<E> pathLabels(Graph<V,E> g, List<V> path){
+        List<E> labels = new ArrayList<E>();
+        for (int i = 0; i + 1 < path.size(); i++){
+            labels.add(g.getLabel(path.get(i), path.get(i + 1)));
+        }
+        return labels;
     }
 
     /**
@@ -170,6 +514,10 @@ public class GraphLibrary{
         System.out.println(missingVertices(testGraph, testTree));
         System.out.println("Average separation from Kevin Bacon:");
         System.out.println(averageSeparation(testTree, "Kevin Bacon"));
+        System.out.println("Shortest path from Dartmouth to Bob and its movies");
+        List<String> path = shortestPath(testGraph, "Dartmouth", "Bob");
+        System.out.println(path);
+        System.out.println(pathLabels(testGraph, path));
     }
 
 }
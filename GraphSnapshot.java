@@ -0,0 +1,212 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary snapshot of a built compact graph, so a later start can map it back instead of reparsing the text files
+ * Holds the actor and movie string tables, the adjacency and edge label arrays, and optionally the centrality table
+ * The header records the size and modification time of every source file and a checksum of the rest,
+ * and a snapshot that doesn't match either is treated as missing
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public class GraphSnapshot {
+    // "BACN" and the layout version, bumped whenever the layout changes
+    private static final int MAGIC = 0x4241434E;
+    private static final int VERSION = 2;
+
+    // what was read back
+    private final CompactGraph graph;
+    private final CentralityTable centrality;
+    private final int actorCount;
+
+    private GraphSnapshot(CompactGraph graph, CentralityTable centrality, int actorCount){
+        this.graph = graph;
+        this.centrality = centrality;
+        this.actorCount = actorCount;
+    }
+
+    /**
+     * @return the graph read back
+     */
+    public CompactGraph graph(){
+        return graph;
+    }
+
+    /**
+     * @return the centrality table read back, or null if the snapshot didn't include one
+     */
+    public CentralityTable centrality(){
+        return centrality;
+    }
+
+    /**
+     * @return number of actors in the actor file when the snapshot was taken, connected or not
+     */
+    public int actorCount(){
+        return actorCount;
+    }
+
+    /**
+     * writes a snapshot of graph, replacing whatever was at snapshotFile
+     * @param snapshotFile where to write
+     * @param graph graph to save
+     * @param centrality centrality table of graph, or null to leave it out
+     * @param actorCount number of actors in the actor file, connected or not
+     * @param sources the files graph was built from, in the order they'll be checked when reading
+     * @throws IOException if a source can't be inspected or the snapshot can't be written
+     */
+    public static void write(String snapshotFile, CompactGraph graph, CentralityTable centrality, int actorCount, String... sources) throws IOException {
+        // lays out the payload first so its checksum can go in the header
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream payload = new DataOutputStream(new BufferedOutputStream(bytes));
+        int n = graph.numVertices();
+        payload.writeInt(actorCount);
+        String[] names = new String[n];
+        for (int v = 0; v < n; v++){
+            names[v] = graph.name(v);
+        }
+        writeStrings(payload, names);
+        String[] movies = new String[graph.numMovies()];
+        for (int m = 0; m < movies.length; m++){
+            movies[m] = graph.movie(m);
+        }
+        writeStrings(payload, movies);
+        writeInts(payload, graph.offsets());
+        writeInts(payload, graph.neighbors());
+        writeInts(payload, graph.edgeLabels());
+        writeInts(payload, graph.sharedLabels());
+        payload.writeBoolean(centrality != null);
+        if (centrality != null){
+            for (int v = 0; v < n; v++){
+                payload.writeDouble(centrality.averageSeparation(v));
+                payload.writeInt(centrality.numReached(v));
+            }
+        }
+        payload.flush();
+        byte[] body = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        // writes to a temporary file and moves it over, so a reader never sees half a snapshot
+        Path target = Paths.get(snapshotFile);
+        Path temporary = Paths.get(snapshotFile + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))){
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sources.length);
+            for (String source : sources){
+                Path path = Paths.get(source);
+                out.writeLong(Files.size(path));
+                out.writeLong(Files.getLastModifiedTime(path).toMillis());
+            }
+            out.writeLong(body.length);
+            out.writeLong(crc.getValue());
+            out.write(body);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * maps a snapshot back in if it is still current
+     * @param snapshotFile where the snapshot was written
+     * @param sources the files the graph would otherwise be built from, in the order they were written
+     * @return the snapshot, or null if it is missing, from another version, corrupt, or older than its sources
+     */
+    public static GraphSnapshot read(String snapshotFile, String... sources){
+        Path path = Paths.get(snapshotFile);
+        if (!Files.exists(path)){
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getInt() != sources.length){
+                return null;
+            }
+            // any source that changed size or time since the snapshot makes it stale
+            for (String source : sources){
+                Path sourcePath = Paths.get(source);
+                if (buffer.getLong() != Files.size(sourcePath) || buffer.getLong() != Files.getLastModifiedTime(sourcePath).toMillis()){
+                    return null;
+                }
+            }
+            long length = buffer.getLong();
+            long checksum = buffer.getLong();
+            if (length != buffer.remaining()){
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice());
+            if (crc.getValue() != checksum){
+                return null;
+            }
+
+            int actorCount = buffer.getInt();
+            String[] names = readStrings(buffer);
+            String[] movies = readStrings(buffer);
+            int[] offsets = readInts(buffer);
+            int[] neighbors = readInts(buffer);
+            int[] edgeLabels = readInts(buffer);
+            int[] sharedLabels = readInts(buffer);
+            CompactGraph graph = new CompactGraph(names, movies, offsets, neighbors, edgeLabels, sharedLabels);
+            CentralityTable centrality = null;
+            if (buffer.get() != 0){
+                double[] averages = new double[names.length];
+                int[] reached = new int[names.length];
+                for (int v = 0; v < names.length; v++){
+                    averages[v] = buffer.getDouble();
+                    reached[v] = buffer.getInt();
+                }
+                centrality = new CentralityTable(graph, averages, reached);
+            }
+            return new GraphSnapshot(graph, centrality, actorCount);
+        }
+        catch (IOException | RuntimeException e){
+            // an unreadable snapshot is just a missing one, the graph can always be rebuilt
+            return null;
+        }
+    }
+
+    // writes a count, then each string as utf-8 bytes behind its length
+    private static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+        out.writeInt(strings.length);
+        for (String string : strings){
+            byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(encoded.length);
+            out.write(encoded);
+        }
+    }
+
+    private static String[] readStrings(ByteBuffer buffer){
+        String[] strings = new String[buffer.getInt()];
+        byte[] scratch = new byte[256];
+        for (int i = 0; i < strings.length; i++){
+            int length = buffer.getInt();
+            if (length > scratch.length){
+                scratch = new byte[length];
+            }
+            buffer.get(scratch, 0, length);
+            strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    // writes a count, then the ints
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values){
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer buffer){
+        int[] values = new int[buffer.getInt()];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + values.length * 4);
+        return values;
+    }
+}
@@ -0,0 +1,399 @@
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the pipe delimited actor, movie and credit files by memory mapping them and scanning the bytes directly
+ * Ids are parsed as ints without making substrings, and each name is decoded to a string exactly once, in the platform charset like FileReader
+ * Big files are mapped in chunks that end on a line break, and the chunks of the credit file are parsed in parallel,
+ * or in order and handed over in batches while the rest of the file is still being read
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public class MappedLoader {
+    // largest piece of a file mapped at once, also the unit of parallel work
+    private static final int CHUNK = 1 << 26;
+
+    // milliseconds spent on each file, in the order they finished, from whichever thread read it
+    private final Map<String, Double> timings = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    /**
+     * id to name table read from an actor or movie file
+     */
+    public static class NameTable {
+        // ids and names in file order
+        private final int[] ids;
+        private final String[] names;
+        private final int size;
+
+        // names indexed directly by id when ids are dense, otherwise the ids sorted for binary search
+        private final String[] byId;
+        private final int[] sortedIds;
+        private final String[] sortedNames;
+
+        NameTable(int[] ids, String[] names, int size){
+            this.ids = ids;
+            this.names = names;
+            this.size = size;
+            int max = 0;
+            for (int i = 0; i < size; i++){
+                max = Math.max(max, ids[i]);
+            }
+            if (max < 8L * size + 1024){
+                byId = new String[max + 1];
+                for (int i = 0; i < size; i++){
+                    byId[ids[i]] = names[i];
+                }
+                sortedIds = null;
+                sortedNames = null;
+            }
+            else{
+                byId = null;
+                long[] packed = new long[size];
+                for (int i = 0; i < size; i++){
+                    packed[i] = ((long) ids[i] << 32) | i;
+                }
+                Arrays.sort(packed);
+                sortedIds = new int[size];
+                sortedNames = new String[size];
+                for (int i = 0; i < size; i++){
+                    sortedIds[i] = (int) (packed[i] >>> 32);
+                    sortedNames[i] = names[(int) packed[i]];
+                }
+            }
+        }
+
+        /**
+         * @return number of lines read
+         */
+        public int size(){
+            return size;
+        }
+
+        /**
+         * @param i line number
+         * @return the id on that line
+         */
+        public int id(int i){
+            return ids[i];
+        }
+
+        /**
+         * @param i line number
+         * @return the name on that line
+         */
+        public String name(int i){
+            return names[i];
+        }
+
+        /**
+         * @param id id to look up
+         * @return the name with that id, or null if there isn't one
+         */
+        public String get(int id){
+            if (byId != null){
+                return id >= 0 && id < byId.length ? byId[id] : null;
+            }
+            int found = Arrays.binarySearch(sortedIds, id);
+            return found < 0 ? null : sortedNames[found];
+        }
+    }
+
+    /**
+     * movie and actor id pairs read from a credit file
+     */
+    public static class Credits {
+        private final int[] movies;
+        private final int[] actors;
+        private final int size;
+
+        Credits(int[] movies, int[] actors, int size){
+            this.movies = movies;
+            this.actors = actors;
+            this.size = size;
+        }
+
+        /**
+         * @return number of credits read
+         */
+        public int size(){
+            return size;
+        }
+
+        /**
+         * @param i credit number
+         * @return the movie id of that credit
+         */
+        public int movie(int i){
+            return movies[i];
+        }
+
+        /**
+         * @param i credit number
+         * @return the actor id of that credit
+         */
+        public int actor(int i){
+            return actors[i];
+        }
+    }
+
+    /**
+     * reads an id|name file
+     * @param file path of the file
+     * @return the ids and names in it
+     * @throws IOException if the file can't be read or has a line without a numeric id
+     */
+    public NameTable readNames(String file) throws IOException {
+        long start = System.nanoTime();
+        int[] ids = new int[1024];
+        String[] names = new String[1024];
+        int size = 0;
+        byte[] scratch = new byte[256];
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)){
+            for (long[] chunk : chunks(channel)){
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]);
+                int limit = buffer.limit();
+                int position = 0;
+                while (position < limit){
+                    int lineEnd = lineEnd(buffer, position, limit);
+                    if (lineEnd > position){
+                        if (size == ids.length){
+                            ids = Arrays.copyOf(ids, size * 2);
+                            names = Arrays.copyOf(names, size * 2);
+                        }
+                        // the id runs up to the first pipe, the name from there up to the next pipe or the line end
+                        int pipe = find(buffer, position, lineEnd, (byte) '|');
+                        ids[size] = parseId(buffer, position, pipe, file);
+                        int nameEnd = find(buffer, Math.min(pipe + 1, lineEnd), lineEnd, (byte) '|');
+                        int length = Math.max(0, nameEnd - pipe - 1);
+                        if (length > scratch.length){
+                            scratch = new byte[Math.max(length, scratch.length * 2)];
+                        }
+                        if (length > 0){
+                            buffer.get(pipe + 1, scratch, 0, length);
+                        }
+                        names[size] = new String(scratch, 0, length, Charset.defaultCharset());
+                        size++;
+                    }
+                    position = next(lineEnd, buffer, limit);
+                }
+            }
+        }
+        timings.put(file, (System.nanoTime() - start) / 1e6);
+        return new NameTable(ids, names, size);
+    }
+
+    /**
+     * reads a movieId|actorId file, parsing its chunks in parallel
+     * @param file path of the file
+     * @return the credits in it, in file order
+     * @throws IOException if the file can't be read or has a line without numeric ids
+     */
+    public Credits readCredits(String file) throws IOException {
+        long start = System.nanoTime();
+        Credits credits;
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)){
+            List<long[]> chunks = chunks(channel);
+            // each chunk is parsed on its own and the pieces are joined back in file order
+            List<Credits> parts;
+            try {
+                parts = chunks.parallelStream().map(chunk -> {
+                    try {
+                        return parseCredits(channel, chunk, file);
+                    }
+                    catch (IOException e){
+                        throw new UncheckedIOException(e);
+                    }
+                }).collect(Collectors.toList());
+            }
+            catch (UncheckedIOException e){
+                throw e.getCause();
+            }
+            int total = 0;
+            for (Credits part : parts){
+                total += part.size;
+            }
+            int[] movies = new int[total];
+            int[] actors = new int[total];
+            int filled = 0;
+            for (Credits part : parts){
+                System.arraycopy(part.movies, 0, movies, filled, part.size);
+                System.arraycopy(part.actors, 0, actors, filled, part.size);
+                filled += part.size;
+            }
+            credits = new Credits(movies, actors, total);
+        }
+        timings.put(file, (System.nanoTime() - start) / 1e6);
+        return credits;
+    }
+
+    /**
+     * reads a movieId|actorId file in file order, putting the credits on a queue in batches as they are parsed
+     * A batch only ends where the movie id changes, so a movie whose credits are together in the file arrives in one batch
+     * @param file path of the file
+     * @param batch about how many credits to put in each batch
+     * @param out queue the batches go on, which holds up the reading while it is full
+     * @throws IOException if the file can't be read or has a line without numeric ids
+     * @throws InterruptedException if interrupted while waiting for room on the queue
+     */
+    public void streamCredits(String file, int batch, BlockingQueue<Credits> out) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        int[] movies = new int[batch];
+        int[] actors = new int[batch];
+        int size = 0;
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)){
+            for (long[] chunk : chunks(channel)){
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]);
+                int limit = buffer.limit();
+                int position = 0;
+                while (position < limit){
+                    int lineEnd = lineEnd(buffer, position, limit);
+                    if (lineEnd > position){
+                        int pipe = find(buffer, position, lineEnd, (byte) '|');
+                        int movie = parseId(buffer, position, pipe, file);
+                        int actor = parseId(buffer, Math.min(pipe + 1, lineEnd), find(buffer, Math.min(pipe + 1, lineEnd), lineEnd, (byte) '|'), file);
+                        // a full batch goes out once its last movie is done, and a long cast just makes the batch bigger
+                        if (size >= batch && movie != movies[size - 1]){
+                            out.put(new Credits(movies, actors, size));
+                            movies = new int[batch];
+                            actors = new int[batch];
+                            size = 0;
+                        }
+                        if (size == movies.length){
+                            movies = Arrays.copyOf(movies, size * 2);
+                            actors = Arrays.copyOf(actors, size * 2);
+                        }
+                        movies[size] = movie;
+                        actors[size] = actor;
+                        size++;
+                    }
+                    position = next(lineEnd, buffer, limit);
+                }
+            }
+        }
+        if (size > 0){
+            out.put(new Credits(movies, actors, size));
+        }
+        timings.put(file, (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * @return milliseconds spent reading each file, in the order they were read
+     */
+    public Map<String, Double> timings(){
+        return Collections.unmodifiableMap(timings);
+    }
+
+    /**
+     * @return one line per file read with how long it took
+     */
+    public String report(){
+        StringBuilder report = new StringBuilder();
+        synchronized (timings){
+            for (String file : timings.keySet()){
+                report.append(String.format("%s loaded in %.1f ms%n", file, timings.get(file)));
+            }
+        }
+        return report.toString();
+    }
+
+    // parses the credits of one chunk of the file
+    private static Credits parseCredits(FileChannel channel, long[] chunk, String file) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]);
+        int limit = buffer.limit();
+        // a credit line is at least four bytes, which bounds the arrays without a first pass
+        int[] movies = new int[limit / 4 + 1];
+        int[] actors = new int[limit / 4 + 1];
+        int size = 0;
+        int position = 0;
+        while (position < limit){
+            int lineEnd = lineEnd(buffer, position, limit);
+            if (lineEnd > position){
+                int pipe = find(buffer, position, lineEnd, (byte) '|');
+                movies[size] = parseId(buffer, position, pipe, file);
+                actors[size] = parseId(buffer, Math.min(pipe + 1, lineEnd), find(buffer, Math.min(pipe + 1, lineEnd), lineEnd, (byte) '|'), file);
+                size++;
+            }
+            position = next(lineEnd, buffer, limit);
+        }
+        return new Credits(movies, actors, size);
+    }
+
+    // splits the file into pieces of at most CHUNK bytes that each end just after a line break
+    private static List<long[]> chunks(FileChannel channel) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        long size = channel.size();
+        long start = 0;
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        while (start < size || chunks.isEmpty()){
+            long end = Math.min(size, start + CHUNK);
+            // pushes the end forward to the next line break so no line is split between chunks
+            while (end < size){
+                probe.clear();
+                int read = channel.read(probe, end);
+                int newline = -1;
+                for (int i = 0; i < read && newline < 0; i++){
+                    if (probe.get(i) == '\n'){
+                        newline = i;
+                    }
+                }
+                if (newline >= 0){
+                    end += newline + 1;
+                    break;
+                }
+                end += Math.max(read, 0);
+            }
+            chunks.add(new long[]{start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    // index of the line break ending the line at position, or limit if the last line has none
+    private static int lineEnd(ByteBuffer buffer, int position, int limit){
+        int end = find(buffer, position, limit, (byte) '\n');
+        // drops a carriage return left by windows line endings
+        return end > position && buffer.get(end - 1) == '\r' ? end - 1 : end;
+    }
+
+    // where the line after lineEnd starts
+    private static int next(int lineEnd, ByteBuffer buffer, int limit){
+        int position = lineEnd;
+        if (position < limit && buffer.get(position) == '\r'){
+            position++;
+        }
+        return position + 1;
+    }
+
+    // index of the first match of b in [from, to), or to if there isn't one
+    private static int find(ByteBuffer buffer, int from, int to, byte b){
+        for (int i = from; i < to; i++){
+            if (buffer.get(i) == b){
+                return i;
+            }
+        }
+        return to;
+    }
+
+    // reads the digits in [from, to) as a non-negative int
+    private static int parseId(ByteBuffer buffer, int from, int to, String file) throws IOException {
+        if (from >= to){
+            throw new IOException("missing id in " + file);
+        }
+        int id = 0;
+        for (int i = from; i < to; i++){
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9){
+                throw new IOException("id is not a number in " + file);
+            }
+            id = id * 10 + digit;
+        }
+        return id;
+    }
+}
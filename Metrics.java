@@ -0,0 +1,291 @@
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters, phase timers and latency histograms for the graph build and the game's commands
+ * Recording is a check of one flag when turned off, and otherwise only adds to striped counters, so it can stay on
+ * Collection starts on unless the bacon.metrics system property is false, and the totals are shown by the stats command and over JMX
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public class Metrics implements MetricsMBean {
+    // whether anything is being recorded
+    private static volatile boolean enabled = !"false".equals(System.getProperty("bacon.metrics"));
+
+    // named event counts, nanoseconds spent in each build phase, and latencies of each command
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> phases = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+
+    /**
+     * log-linear histogram of nanosecond values, like HdrHistogram with 4 significant bits
+     * Each power of two is split into 16 buckets, so a reported value is within about 6% of the real one
+     */
+    public static class Histogram {
+        private static final int SUB_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+        private final LongAdder total = new LongAdder();
+
+        // largest value recorded, exact rather than rounded down to its bucket
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        // the bucket of a value, exact below 16 and then 16 buckets per power of two
+        private static int bucket(long value){
+            int magnitude = 63 - Long.numberOfLeadingZeros(Math.max(value, 1));
+            if (magnitude < SUB_BITS){
+                return (int) Math.max(value, 0);
+            }
+            int sub = (int) (value >>> (magnitude - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return magnitude * SUB_BUCKETS + sub;
+        }
+
+        // the lowest value that falls in a bucket
+        private static long lowest(int bucket){
+            int magnitude = bucket / SUB_BUCKETS;
+            int sub = bucket % SUB_BUCKETS;
+            if (magnitude < SUB_BITS){
+                return bucket;
+            }
+            return (long) (SUB_BUCKETS + sub) << (magnitude - SUB_BITS);
+        }
+
+        /**
+         * @param value value to add, in nanoseconds
+         */
+        public void record(long value){
+            counts.incrementAndGet(bucket(value));
+            total.increment();
+            max.accumulate(value);
+        }
+
+        /**
+         * @return the largest value recorded, 0 if nothing was recorded
+         */
+        public long max(){
+            return max.get();
+        }
+
+        /**
+         * @return how many values were recorded
+         */
+        public long count(){
+            return total.sum();
+        }
+
+        /**
+         * @param percentile percentile between 0 and 100
+         * @return the lowest value of the bucket holding that percentile, 0 if nothing was recorded
+         */
+        public long percentile(double percentile){
+            long count = count();
+            if (count == 0){
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++){
+                seen += counts.get(i);
+                if (seen >= rank){
+                    return lowest(i);
+                }
+            }
+            return lowest(counts.length() - 1);
+        }
+    }
+
+    /**
+     * @return whether metrics are being recorded
+     */
+    public static boolean enabled(){
+        return enabled;
+    }
+
+    /**
+     * @return a start time to pass to phase or latency, 0 when metrics are off
+     */
+    public static long start(){
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * @param name counter to add to
+     * @param amount how much to add
+     */
+    public static void count(String name, long amount){
+        if (enabled){
+            counters.computeIfAbsent(name, k -> new LongAdder()).add(amount);
+        }
+    }
+
+    /**
+     * @param cache name of the cache
+     * @param hit whether the lookup found what it wanted
+     */
+    public static void lookup(String cache, boolean hit){
+        if (enabled){
+            count(cache + (hit ? ".hit" : ".miss"), 1);
+        }
+    }
+
+    /**
+     * adds the time since start to a build phase
+     * @param name phase name, such as parse
+     * @param start time from start()
+     */
+    public static void phase(String name, long start){
+        if (enabled && start != 0){
+            phases.computeIfAbsent(name, k -> new LongAdder()).add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * records how long one command took
+     * @param command command letter
+     * @param start time from start()
+     */
+    public static void latency(String command, long start){
+        if (enabled && start != 0){
+            latencies.computeIfAbsent(command, k -> new Histogram()).record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * counts one bfs and the vertices and edges it touched
+     * @param reached number of vertices reached
+     * @param edges number of edges, or credits for a bipartite graph, scanned
+     */
+    public static void bfs(int reached, long edges){
+        if (enabled){
+            count("bfs.runs", 1);
+            count("bfs.vertices", reached);
+            count("bfs.edges", edges);
+        }
+    }
+
+    /**
+     * @param name counter name
+     * @return the counter's value, 0 if it was never counted
+     */
+    public static long get(String name){
+        LongAdder counter = counters.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * @param command command letter
+     * @return the command's latency histogram, null if it never ran
+     */
+    public static Histogram histogram(String command){
+        return latencies.get(command);
+    }
+
+    /**
+     * @return the build phase times, counters, cache hit rates and command latencies as lines of text
+     */
+    public static String report(){
+        StringBuilder report = new StringBuilder("metrics " + (enabled ? "on" : "off") + "\n");
+        for (Map.Entry<String, LongAdder> phase : new TreeMap<>(phases).entrySet()){
+            report.append(String.format("phase %s: %.3f ms%n", phase.getKey(), phase.getValue().sum() / 1e6));
+        }
+        for (Map.Entry<String, LongAdder> counter : new TreeMap<>(counters).entrySet()){
+            report.append("count ").append(counter.getKey()).append(": ").append(counter.getValue().sum()).append('\n');
+        }
+        for (String cache : caches()){
+            long hits = get(cache + ".hit");
+            long lookups = hits + get(cache + ".miss");
+            if (lookups > 0){
+                report.append(String.format("cache %s: %.1f%% hits of %d%n", cache, 100.0 * hits / lookups, lookups));
+            }
+        }
+        for (Map.Entry<String, Histogram> latency : new TreeMap<>(latencies).entrySet()){
+            Histogram histogram = latency.getValue();
+            report.append(String.format("command %s: %d runs, p50 %.1f us, p99 %.1f us, max %.1f us%n", latency.getKey(), histogram.count(),
+                    histogram.percentile(50) / 1e3, histogram.percentile(99) / 1e3, histogram.max() / 1e3));
+        }
+        return report.toString().trim();
+    }
+
+    /**
+     * @return the name of every cache with a lookup counted, as name.hit or name.miss, in name order
+     */
+    public static Set<String> caches(){
+        Set<String> caches = new TreeSet<>();
+        for (String name : counters.keySet()){
+            if (name.endsWith(".hit")){
+                caches.add(name.substring(0, name.length() - ".hit".length()));
+            }
+            else if (name.endsWith(".miss")){
+                caches.add(name.substring(0, name.length() - ".miss".length()));
+            }
+        }
+        return caches;
+    }
+
+    /**
+     * registers the metrics with the platform MBean server, once
+     */
+    public static synchronized void register(){
+        try{
+            javax.management.MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            javax.management.ObjectName name = new javax.management.ObjectName("bacon:type=Metrics");
+            if (!server.isRegistered(name)){
+                server.registerMBean(new Metrics(), name);
+            }
+        }
+        catch(javax.management.JMException e){
+            //catch JMX exception, the game still works without the MBean
+            System.out.println("could not register metrics " + e.getMessage());
+        }
+    }
+
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled){
+        Metrics.enabled = enabled;
+    }
+
+    public String getReport(){
+        return report();
+    }
+
+    public long getBfsRuns(){
+        return get("bfs.runs");
+    }
+
+    public long getBfsVertices(){
+        return get("bfs.vertices");
+    }
+
+    public long getBfsEdges(){
+        return get("bfs.edges");
+    }
+
+    public long counter(String name){
+        return get(name);
+    }
+
+    public double hitRate(String cache){
+        long hits = get(cache + ".hit");
+        long lookups = hits + get(cache + ".miss");
+        return lookups == 0 ? 0 : 100.0 * hits / lookups;
+    }
+
+    public double percentile(String command, double percentile){
+        Histogram histogram = latencies.get(command);
+        return histogram == null ? 0 : histogram.percentile(percentile) / 1e3;
+    }
+
+    public void reset(){
+        counters.clear();
+        phases.clear();
+        latencies.clear();
+    }
+}
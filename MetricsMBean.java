@@ -0,0 +1,60 @@
+/**
+ * What the game's metrics show over JMX, under bacon:type=Metrics
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public interface MetricsMBean {
+    /**
+     * @return whether metrics are being collected
+     */
+    boolean isEnabled();
+
+    /**
+     * @param enabled whether to collect metrics from now on
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return the same report the stats command prints
+     */
+    String getReport();
+
+    /**
+     * @return number of array bfs runs
+     */
+    long getBfsRuns();
+
+    /**
+     * @return vertices reached over all array bfs runs
+     */
+    long getBfsVertices();
+
+    /**
+     * @return edges scanned over all array bfs runs
+     */
+    long getBfsEdges();
+
+    /**
+     * @param name counter name, such as pathtree.hit
+     * @return the counter's value, 0 if it was never counted
+     */
+    long counter(String name);
+
+    /**
+     * @param cache cache name, such as degree, as listed in the report
+     * @return percentage of the cache's lookups that were hits, 0 if it was never looked up
+     */
+    double hitRate(String cache);
+
+    /**
+     * @param command command letter, such as p
+     * @param percentile percentile between 0 and 100
+     * @return the command's latency at that percentile in microseconds, 0 if it never ran
+     */
+    double percentile(String command, double percentile);
+
+    /**
+     * clears every metric
+     */
+    void reset();
+}
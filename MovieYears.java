@@ -0,0 +1,135 @@
+import java.util.*;
+
+/**
+ * Release year of every movie in a compact graph, read once per graph from the year in parentheses that ends each title
+ * Lets year ranges and recency be checked on an edge's movie ids directly, without decoding titles
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public class MovieYears {
+    // year each movie came out by movie id, 0 when its title has no year
+    private final int[] years;
+
+    // graph the years were read from
+    private final CompactGraph graph;
+
+    // earliest and latest years found, both 0 if no title had one
+    private final int earliest;
+    private final int latest;
+
+    /**
+     *
+     * @param graph compact graph whose movies to date
+     */
+    public MovieYears(CompactGraph graph){
+        int[] years = new int[graph.numMovies()];
+        int earliest = 0;
+        int latest = 0;
+        for (int m = 0; m < years.length; m++){
+            years[m] = parseYear(graph.movie(m));
+            if (years[m] > 0){
+                earliest = earliest == 0 ? years[m] : Math.min(earliest, years[m]);
+                latest = Math.max(latest, years[m]);
+            }
+        }
+        this.graph = graph;
+        this.years = years;
+        this.earliest = earliest;
+        this.latest = latest;
+    }
+
+    /**
+     * @param title movie title such as "Toy Story (1995)"
+     * @return the four digit year in the last parentheses of the title, or 0 if there isn't one
+     */
+    public static int parseYear(String title){
+        int open = title.lastIndexOf('(');
+        if (open < 0 || open + 5 > title.length()){
+            return 0;
+        }
+        int year = 0;
+        for (int i = open + 1; i < open + 5; i++){
+            char c = title.charAt(i);
+            if (c < '0' || c > '9'){
+                return 0;
+            }
+            year = year * 10 + c - '0';
+        }
+        return year;
+    }
+
+    /**
+     * @param movie movie id
+     * @return the year the movie came out, 0 if unknown
+     */
+    public int year(int movie){
+        return years[movie];
+    }
+
+    /**
+     * @return the earliest year of any movie, 0 if no movie has one
+     */
+    public int earliest(){
+        return earliest;
+    }
+
+    /**
+     * @return the latest year of any movie, 0 if no movie has one
+     */
+    public int latest(){
+        return latest;
+    }
+
+    /**
+     * @param edge slot in the graph's neighbors()
+     * @return the latest year of the movies the edge's two actors shared, 0 if none of them has one
+     */
+    public int newest(int edge){
+        int label = graph.edgeLabels()[edge];
+        if (label >= 0){
+            return years[label];
+        }
+        int[] shared = graph.sharedLabels();
+        int newest = 0;
+        for (int k = ~label + 1; k <= ~label + shared[~label]; k++){
+            newest = Math.max(newest, years[shared[k]]);
+        }
+        return newest;
+    }
+
+    /**
+     * @param edge slot in the graph's neighbors()
+     * @param low earliest year allowed
+     * @param high latest year allowed
+     * @return whether the edge's two actors shared a movie that came out between low and high
+     */
+    public boolean anyBetween(int edge, int low, int high){
+        int label = graph.edgeLabels()[edge];
+        if (label >= 0){
+            return years[label] >= low && years[label] <= high;
+        }
+        int[] shared = graph.sharedLabels();
+        for (int k = ~label + 1; k <= ~label + shared[~label]; k++){
+            if (years[shared[k]] >= low && years[shared[k]] <= high){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param edge slot in the graph's neighbors()
+     * @param low earliest year allowed
+     * @param high latest year allowed
+     * @return the titles of the edge's shared movies that came out between low and high
+     */
+    public Set<String> between(int edge, int low, int high){
+        Set<String> movieset = new HashSet<>();
+        for (int m : graph.labelIds(edge)){
+            if (years[m] >= low && years[m] <= high){
+                movieset.add(graph.movie(m));
+            }
+        }
+        return movieset;
+    }
+}
@@ -0,0 +1,296 @@
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Depth limited neighborhoods around an actor: who is within k hops and how many, without a bfs over the whole graph
+ * A search stops expanding after k hops and marks the actors it visits in a bitset that is cleared bit by bit afterwards,
+ * so it only ever touches the actors it reaches. The 1 and 2 hop frontiers of the highest degree actors are kept as bitsets,
+ * which answer their near queries straight away and seed their deeper ones
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public class Neighborhood {
+    // how many of the highest degree actors get their frontiers kept, and how many hops of frontier each keeps
+    public static final int DEFAULT_HUBS = 64;
+    public static final int CACHED_HOPS = 2;
+
+    // graph the neighborhoods are searched in
+    private final ActorGraph graph;
+
+    // ids of the actors whose frontiers are kept, sorted for binary search
+    private final int[] hubs;
+
+    // kept frontiers in the same order as hubs, each worked out the first time its hub is asked about
+    private final AtomicReferenceArray<Frontiers> frontiers;
+
+    // visited actors, and movies for the bipartite graph, one bitset per thread so searches can run at once
+    private final ThreadLocal<long[]> seenActors;
+    private final ThreadLocal<long[]> seenMovies;
+
+    // a hub's actors at each hop from 1 to CACHED_HOPS, as bitsets by id, and how many each holds
+    private static class Frontiers {
+        private final long[][] bits;
+        private final int[] sizes;
+
+        Frontiers(long[][] bits, int[] sizes){
+            this.bits = bits;
+            this.sizes = sizes;
+        }
+    }
+
+    /**
+     *
+     * @param graph actor graph to search
+     * @param hubCount how many of the highest degree actors get their frontiers kept
+     */
+    public Neighborhood(ActorGraph graph, int hubCount){
+        this.graph = graph;
+        this.hubs = graph.indexes().degree().highest(hubCount);
+        Arrays.sort(hubs);
+        this.frontiers = new AtomicReferenceArray<>(hubs.length);
+        int movies = graph instanceof BipartiteGraph ? ((BipartiteGraph) graph).numMovies() : 0;
+        this.seenActors = ThreadLocal.withInitial(() -> new long[(graph.numVertices() + 63) / 64]);
+        this.seenMovies = ThreadLocal.withInitial(() -> new long[(movies + 63) / 64]);
+    }
+
+    /**
+     * @return the graph the neighborhoods are searched in
+     */
+    public ActorGraph graph(){
+        return graph;
+    }
+
+    /**
+     * @param actor actor name
+     * @param k most hops away to count
+     * @return how many other actors are within k hops of actor
+     */
+    public int count(String actor, int k){
+        int source = graph.id(actor);
+        // a hub's near counts are already known, so nothing is searched
+        if (k <= CACHED_HOPS && isHub(source)){
+            Frontiers kept = frontiers(source);
+            int count = 0;
+            for (int h = 0; h < k; h++){
+                count += kept.sizes[h];
+            }
+            return count;
+        }
+        int count = 0;
+        for (int[] level : search(source, k)){
+            count += level.length;
+        }
+        return count;
+    }
+
+    /**
+     * @param actor actor name
+     * @param k most hops away to include
+     * @return names of the other actors within k hops of actor, nearest first and by name within each hop
+     */
+    public List<String> members(String actor, int k){
+        List<String> members = new ArrayList<>();
+        for (int[] level : search(graph.id(actor), k)){
+            List<String> names = new ArrayList<>(level.length);
+            for (int v : level){
+                names.add(graph.name(v));
+            }
+            Collections.sort(names);
+            members.addAll(names);
+        }
+        return members;
+    }
+
+    /**
+     * @param actor actor name
+     * @param other actor name
+     * @param k most hops apart
+     * @return whether other is within k hops of actor, other than actor itself
+     */
+    public boolean within(String actor, String other, int k){
+        int source = graph.id(actor);
+        int target = graph.id(other);
+        if (k <= CACHED_HOPS && isHub(source)){
+            long[][] bits = frontiers(source).bits;
+            for (int h = 0; h < k; h++){
+                if (get(bits[h], target)){
+                    return true;
+                }
+            }
+            return false;
+        }
+        for (int[] level : search(source, k)){
+            for (int v : level){
+                if (v == target){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param source actor id
+     * @param k most hops to go out
+     * @return the ids of the actors at each hop from 1 up to k, stopping early if nobody is left
+     */
+    public List<int[]> search(int source, int k){
+        return search(source, k, isHub(source));
+    }
+
+    // searches out k hops, starting from the kept frontiers when told to
+    private List<int[]> search(int source, int k, boolean useKept){
+        // a hub's frontiers are fetched first, since working them out runs a search of its own on this thread's bitsets
+        Frontiers kept = k > 0 && useKept ? frontiers(source) : null;
+        List<int[]> levels = new ArrayList<>();
+        long[] seen = seenActors.get();
+        set(seen, source);
+        int[] frontier = {source};
+
+        // a hub starts from its kept frontiers, only marking the actors in them so the search can carry on past them
+        int hops = 0;
+        if (kept != null){
+            for (; hops < Math.min(k, CACHED_HOPS) && frontier.length > 0; hops++){
+                frontier = members(kept.bits[hops], kept.sizes[hops]);
+                for (int v : frontier){
+                    set(seen, v);
+                }
+                if (frontier.length > 0){
+                    levels.add(frontier);
+                }
+            }
+        }
+
+        // the movies passed through, for the bipartite graph, so their bits can be cleared afterwards
+        int[] movies = new int[16];
+        int movieCount = 0;
+        long edges = 0;
+        for (; hops < k && frontier.length > 0; hops++){
+            int[] next = new int[16];
+            int size = 0;
+            if (graph instanceof BipartiteGraph){
+                // steps from each actor to its movies and from each movie not yet passed through to its cast
+                BipartiteGraph bipartite = (BipartiteGraph) graph;
+                int[] actorOffsets = bipartite.actorOffsets();
+                int[] actorMovies = bipartite.actorMovies();
+                int[] movieOffsets = bipartite.movieOffsets();
+                int[] movieActors = bipartite.movieActors();
+                long[] seenMovie = seenMovies.get();
+                for (int u : frontier){
+                    for (int l = actorOffsets[u]; l < actorOffsets[u + 1]; l++){
+                        int m = actorMovies[l];
+                        if (get(seenMovie, m)){
+                            continue;
+                        }
+                        set(seenMovie, m);
+                        movies = append(movies, movieCount++, m);
+                        edges += movieOffsets[m + 1] - movieOffsets[m];
+                        for (int c = movieOffsets[m]; c < movieOffsets[m + 1]; c++){
+                            int v = movieActors[c];
+                            if (!get(seen, v)){
+                                set(seen, v);
+                                next = append(next, size++, v);
+                            }
+                        }
+                    }
+                }
+            }
+            else {
+                // a year view walks the same arrays, less the edges outside its years
+                YearView view = graph instanceof YearView ? (YearView) graph : null;
+                CompactGraph compact = view != null ? view.graph() : (CompactGraph) graph;
+                int[] offsets = compact.offsets();
+                int[] neighbors = compact.neighbors();
+                for (int u : frontier){
+                    edges += offsets[u + 1] - offsets[u];
+                    for (int l = offsets[u]; l < offsets[u + 1]; l++){
+                        int v = neighbors[l];
+                        if (!get(seen, v) && (view == null || view.keeps(l))){
+                            set(seen, v);
+                            next = append(next, size++, v);
+                        }
+                    }
+                }
+            }
+            frontier = Arrays.copyOf(next, size);
+            if (size > 0){
+                levels.add(frontier);
+            }
+        }
+
+        // clears only the bits that were set, leaving the bitsets ready for the next search on this thread
+        clear(seen, source);
+        int reached = 1;
+        for (int[] level : levels){
+            for (int v : level){
+                clear(seen, v);
+            }
+            reached += level.length;
+        }
+        for (int i = 0; i < movieCount; i++){
+            clear(seenMovies.get(), movies[i]);
+        }
+        Metrics.bfs(reached, edges);
+        return levels;
+    }
+
+    // whether an actor's frontiers are kept
+    private boolean isHub(int id){
+        return Arrays.binarySearch(hubs, id) >= 0;
+    }
+
+    // the kept frontiers of a hub, searched for the first time it's asked about
+    private Frontiers frontiers(int hub){
+        int slot = Arrays.binarySearch(hubs, hub);
+        Frontiers kept = frontiers.get(slot);
+        Metrics.lookup("frontier", kept != null);
+        if (kept == null){
+            // two threads asking at once may both search, and whichever stores its frontiers first is kept
+            List<int[]> levels = search(hub, CACHED_HOPS, false);
+            long[][] bits = new long[CACHED_HOPS][(graph.numVertices() + 63) / 64];
+            int[] sizes = new int[CACHED_HOPS];
+            for (int hop = 0; hop < levels.size(); hop++){
+                for (int v : levels.get(hop)){
+                    set(bits[hop], v);
+                }
+                sizes[hop] = levels.get(hop).length;
+            }
+            frontiers.compareAndSet(slot, null, new Frontiers(bits, sizes));
+            kept = frontiers.get(slot);
+        }
+        return kept;
+    }
+
+    // the ids set in a bitset, in id order
+    private static int[] members(long[] bits, int size){
+        int[] members = new int[size];
+        int i = 0;
+        for (int word = 0; word < bits.length && i < size; word++){
+            for (long rest = bits[word]; rest != 0; rest &= rest - 1){
+                members[i++] = word * 64 + Long.numberOfTrailingZeros(rest);
+            }
+        }
+        return members;
+    }
+
+    // stores value at index, doubling the array first if it's full
+    private static int[] append(int[] array, int index, int value){
+        if (index == array.length){
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[index] = value;
+        return array;
+    }
+
+    private static boolean get(long[] bits, int i){
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    private static void set(long[] bits, int i){
+        bits[i >>> 6] |= 1L << i;
+    }
+
+    private static void clear(long[] bits, int i){
+        bits[i >>> 6] &= ~(1L << i);
+    }
+}
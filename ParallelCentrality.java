@@ -0,0 +1,162 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Computes every actor's average separation and connected count by running the all-sources bfs across cores
+ * The plain mode splits the sources over a fork-join pool with one set of bfs buffers per task
+ * The bit parallel mode runs 64 sources per pass, with one bit of a long per source in each frontier and visited mask
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public class ParallelCentrality {
+    // sources handled together by one bit parallel pass, one per bit of a long
+    private static final int BATCH = 64;
+
+    /**
+     * @param graph actor graph to rank
+     * @return the centrality table, computed with one bfs per actor on the common pool
+     */
+    public static CentralityTable compute(ActorGraph graph){
+        return compute(graph, ForkJoinPool.commonPool(), false);
+    }
+
+    /**
+     *
+     * @param graph actor graph to rank
+     * @param pool pool to run the traversals on
+     * @param bitParallel whether to run 64 sources per pass with long masks instead of one bfs per source, only for a compact graph
+     * @return the centrality table for graph
+     */
+    public static CentralityTable compute(ActorGraph graph, ForkJoinPool pool, boolean bitParallel){
+        if (bitParallel && !(graph instanceof CompactGraph)){
+            throw new IllegalArgumentException("bit parallel centrality needs a compact graph");
+        }
+        int n = graph.numVertices();
+        double[] averages = new double[n];
+        int[] reached = new int[n];
+        // aims for a few tasks per worker so uneven components still balance out
+        int grain = Math.max(1, n / (pool.getParallelism() * 4));
+        if (bitParallel){
+            grain = Math.max(BATCH, (grain + BATCH - 1) / BATCH * BATCH);
+        }
+        pool.invoke(new Sources(graph, 0, n, grain, bitParallel, averages, reached));
+        return new CentralityTable(graph, averages, reached);
+    }
+
+    /**
+     * splits a range of sources in half until it's small enough for one task to traverse
+     */
+    private static class Sources extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ActorGraph graph;
+        private final int low, high, grain;
+        private final boolean bitParallel;
+        private final double[] averages;
+        private final int[] reached;
+
+        Sources(ActorGraph graph, int low, int high, int grain, boolean bitParallel, double[] averages, int[] reached){
+            this.graph = graph;
+            this.low = low;
+            this.high = high;
+            this.grain = grain;
+            this.bitParallel = bitParallel;
+            this.averages = averages;
+            this.reached = reached;
+        }
+
+        @Override
+        protected void compute(){
+            if (high - low > grain){
+                // splits on a batch boundary so bit parallel passes stay full
+                int middle = low + (high - low) / 2;
+                if (bitParallel){
+                    middle = low + Math.max(BATCH, (middle - low) / BATCH * BATCH);
+                }
+                invokeAll(new Sources(graph, low, middle, grain, bitParallel, averages, reached),
+                        new Sources(graph, middle, high, grain, bitParallel, averages, reached));
+            }
+            else if (bitParallel){
+                long[][] masks = new long[3][graph.numVertices()];
+                for (int start = low; start < high; start += BATCH){
+                    multiSource((CompactGraph) graph, start, Math.min(high, start + BATCH), masks, averages, reached);
+                }
+            }
+            else{
+                // one set of buffers reused for every source this task owns
+                int n = graph.numVertices();
+                int[] dist = new int[n];
+                int[] parent = new int[n];
+                int[] queue = new int[n];
+                for (int v = low; v < high; v++){
+                    reached[v] = graph.bfs(v, dist, parent, queue);
+                    averages[v] = GraphLibrary.averageSeparation(dist, n);
+                }
+            }
+        }
+    }
+
+    /**
+     * runs bfs from up to 64 consecutive sources at once, source start + i owning bit i
+     * @param graph compact graph to traverse
+     * @param start first source id
+     * @param end one past the last source id
+     * @param masks three scratch arrays of graph.numVertices() longs
+     * @param averages filled with each source's average separation
+     * @param reached filled with each source's connected count, itself included
+     */
+    public static void multiSource(CompactGraph graph, int start, int end, long[][] masks, double[] averages, int[] reached){
+        int n = graph.numVertices();
+        int[] offsets = graph.offsets();
+        int[] neighbors = graph.neighbors();
+        long[] visited = masks[0];
+        long[] frontier = masks[1];
+        long[] next = masks[2];
+        Arrays.fill(visited, 0, n, 0L);
+        Arrays.fill(frontier, 0, n, 0L);
+
+        // each source starts out visited and in the frontier under its own bit
+        long[] totals = new long[BATCH];
+        int[] counts = new int[BATCH];
+        for (int s = start; s < end; s++){
+            visited[s] |= 1L << (s - start);
+            frontier[s] |= 1L << (s - start);
+        }
+
+        boolean growing = true;
+        for (int level = 1; growing; level++){
+            // every vertex pulls in the frontier bits of its neighbors that it hasn't seen yet
+            for (int v = 0; v < n; v++){
+                long seen = 0L;
+                for (int k = offsets[v]; k < offsets[v + 1]; k++){
+                    seen |= frontier[neighbors[k]];
+                }
+                next[v] = seen & ~visited[v];
+            }
+            // the new bits at each vertex are the sources that reach it at this level
+            growing = false;
+            for (int v = 0; v < n; v++){
+                long found = next[v];
+                if (found != 0L){
+                    growing = true;
+                    visited[v] |= found;
+                    while (found != 0L){
+                        int bit = Long.numberOfTrailingZeros(found);
+                        totals[bit] += level;
+                        counts[bit]++;
+                        found &= found - 1;
+                    }
+                }
+            }
+            long[] swap = frontier;
+            frontier = next;
+            next = swap;
+        }
+
+        for (int s = start; s < end; s++){
+            int bit = s - start;
+            averages[s] = (double) totals[bit] / counts[bit];
+            reached[s] = counts[bit] + 1;
+        }
+    }
+}
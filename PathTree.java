@@ -0,0 +1,374 @@
+import java.util.*;
+
+/**
+ * Shortest path tree from one center of an actor graph, kept as distance and parent arrays
+ * Trees of recent centers are kept in a least recently used cache up to a memory budget, so switching back to one skips bfs
+ * Arrays of evicted trees are reused for the next new center, and movie labels are only looked up when a path is printed
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public class PathTree {
+    // graph the tree was built over
+    private ActorGraph graph;
+
+    // reusable bfs buffers
+    private int[] dist;
+    private int[] parent;
+    private int[] queue;
+
+    // id of the current center and how many actors it reaches, itself included
+    private int source;
+    private int reached;
+
+    // names of the reached actors grouped by separation and sorted within each group, built when first needed
+    private List<List<String>> buckets;
+
+    // default memory budget for cached trees
+    public static final long DEFAULT_CACHE_BYTES = 64L << 20;
+
+    // trees of earlier centers by center id, least recently used first
+    private final LinkedHashMap<Integer, Tree> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cacheBytes = DEFAULT_CACHE_BYTES;
+
+    // how many center switches were served from the cache and how many needed bfs
+    private long hits;
+    private long misses;
+
+    // a saved tree of one center, without its sorted buckets, which are as big again as the arrays and rebuilt if asked for
+    private static class Tree {
+        int[] dist;
+        int[] parent;
+        int reached;
+    }
+
+    /**
+     *
+     * @param graph actor graph to search
+     * @param center name of the starting center
+     */
+    public PathTree(ActorGraph graph, String center){
+        this.graph = graph;
+        this.dist = new int[graph.numVertices()];
+        this.parent = new int[graph.numVertices()];
+        this.queue = new int[graph.numVertices()];
+        this.source = -1;
+        setCenter(center);
+    }
+
+    /**
+     * moves the tree to a new center, taking its tree from the cache if it's there and running bfs otherwise
+     * The tree being left is cached in turn, evicting the least recently used trees once the budget is used up
+     * @param center name of the new center
+     */
+    public void setCenter(String center){
+        int id = graph.id(center);
+        if (id == source){
+            return;
+        }
+        Tree previous = null;
+        if (source >= 0){
+            previous = new Tree();
+            previous.dist = dist;
+            previous.parent = parent;
+            previous.reached = reached;
+        }
+        Tree saved = cache.remove(id);
+        if (previous != null){
+            cache.put(source, previous);
+        }
+        // arrays of evicted trees are recycled, so a miss only allocates while the cache is still filling up
+        Tree spare = evict();
+        source = id;
+        Metrics.lookup("pathtree", saved != null);
+        if (saved != null){
+            hits++;
+            dist = saved.dist;
+            parent = saved.parent;
+            reached = saved.reached;
+            buckets = null;
+            return;
+        }
+        misses++;
+        if (spare != null){
+            dist = spare.dist;
+            parent = spare.parent;
+        }
+        else if (previous != null){
+            dist = new int[graph.numVertices()];
+            parent = new int[graph.numVertices()];
+        }
+        reached = graph.bfs(source, dist, parent, queue);
+        buckets = null;
+    }
+
+    // drops least recently used trees until the cache fits its budget, returning the last one dropped
+    private Tree evict(){
+        Tree dropped = null;
+        long perTree = 8L * graph.numVertices();
+        Iterator<Tree> trees = cache.values().iterator();
+        while (trees.hasNext() && cache.size() * perTree > cacheBytes){
+            dropped = trees.next();
+            trees.remove();
+        }
+        return dropped;
+    }
+
+    /**
+     * sets how much memory cached trees may take, evicting trees if the cache is now over it
+     * Each tree is counted as its distance and parent arrays, 8 bytes per actor, which is all a cached tree keeps
+     * @param bytes memory budget, 0 to turn caching off
+     */
+    public void setCacheBudget(long bytes){
+        cacheBytes = bytes;
+        evict();
+    }
+
+    /**
+     * @return number of cached trees, not counting the current center's
+     */
+    public int cachedTrees(){
+        return cache.size();
+    }
+
+    /**
+     * @return number of center switches served from the cache
+     */
+    public long hits(){
+        return hits;
+    }
+
+    /**
+     * @return number of center switches that needed bfs
+     */
+    public long misses(){
+        return misses;
+    }
+
+    /**
+     * moves the tree onto an edited copy of its graph, only revisiting actors around the edges that changed
+     * Actors cut off by a deleted tree edge are reset and resettled from their still connected neighbors,
+     * then inserted edges that shorten a distance are relaxed outward from where they land
+     * @param updated the graph after the edits, with every existing actor keeping its id
+     * @param inserted {u, v} pairs of co-stars who had no edge before
+     * @param deleted {u, v} pairs of co-stars whose edge is gone
+     */
+    public void repair(CompactGraph updated, List<int[]> inserted, List<int[]> deleted){
+        // new actors start out unreachable
+        int n = updated.numVertices();
+        if (n > dist.length){
+            int old = dist.length;
+            dist = Arrays.copyOf(dist, n);
+            parent = Arrays.copyOf(parent, n);
+            queue = new int[n];
+            Arrays.fill(dist, old, n, -1);
+            Arrays.fill(parent, old, n, -1);
+        }
+        graph = updated;
+        buckets = null;
+        // cached trees belong to the old graph
+        cache.clear();
+        int[] offsets = updated.offsets();
+        int[] neighbors = updated.neighbors();
+
+        // a deleted edge only matters if the tree used it, and then everything hanging below it loses its distance
+        List<Integer> affected = new ArrayList<>();
+        Set<Integer> cut = new HashSet<>();
+        for (int[] edge : deleted){
+            for (int side = 0; side < 2; side++){
+                int child = edge[side];
+                if (parent[child] == edge[1 - side] && cut.add(child)){
+                    affected.add(child);
+                }
+            }
+        }
+        // walks down the old tree, a neighbor is below an affected actor if that actor was its parent
+        for (int i = 0; i < affected.size(); i++){
+            int u = affected.get(i);
+            for (int k = offsets[u]; k < offsets[u + 1]; k++){
+                int w = neighbors[k];
+                if (parent[w] == u && cut.add(w)){
+                    affected.add(w);
+                }
+            }
+        }
+        for (int u : affected){
+            dist[u] = -1;
+            parent[u] = -1;
+            reached--;
+        }
+
+        // settles distances in increasing order, packed as distance then id so the queue orders by distance
+        PriorityQueue<Long> pending = new PriorityQueue<>();
+        for (int u : affected){
+            for (int k = offsets[u]; k < offsets[u + 1]; k++){
+                int w = neighbors[k];
+                if (dist[w] >= 0 && (dist[u] < 0 || dist[w] + 1 < dist[u])){
+                    reached += dist[u] < 0 ? 1 : 0;
+                    dist[u] = dist[w] + 1;
+                    parent[u] = w;
+                }
+            }
+            if (dist[u] >= 0){
+                pending.add(((long) dist[u] << 32) | u);
+            }
+        }
+        // an inserted edge can only shorten the far end's distance
+        for (int[] edge : inserted){
+            for (int side = 0; side < 2; side++){
+                int u = edge[side];
+                int v = edge[1 - side];
+                if (dist[u] >= 0 && (dist[v] < 0 || dist[u] + 1 < dist[v])){
+                    reached += dist[v] < 0 ? 1 : 0;
+                    dist[v] = dist[u] + 1;
+                    parent[v] = u;
+                    pending.add(((long) dist[v] << 32) | v);
+                }
+            }
+        }
+        while (!pending.isEmpty()){
+            long next = pending.remove();
+            int u = (int) next;
+            // skips entries that were improved again after being queued
+            if (dist[u] != (int) (next >>> 32)){
+                continue;
+            }
+            for (int k = offsets[u]; k < offsets[u + 1]; k++){
+                int w = neighbors[k];
+                if (dist[w] < 0 || dist[u] + 1 < dist[w]){
+                    reached += dist[w] < 0 ? 1 : 0;
+                    dist[w] = dist[u] + 1;
+                    parent[w] = u;
+                    pending.add(((long) dist[w] << 32) | w);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the graph this tree searches
+     */
+    public ActorGraph graph(){
+        return graph;
+    }
+
+    /**
+     * @return the name of the current center
+     */
+    public String center(){
+        return graph.name(source);
+    }
+
+    /**
+     * @return number of actors connected to the center, the center included
+     */
+    public int numReached(){
+        return reached;
+    }
+
+    /**
+     * @param actor actor name
+     * @return the actor's separation from the center, -1 if unknown or unreachable
+     */
+    public int distance(String actor){
+        int id = graph.indexOf(actor);
+        return id < 0 ? -1 : dist[id];
+    }
+
+    /**
+     * @param id actor id
+     * @return the actor's separation from the center, -1 if unreachable
+     */
+    public int distance(int id){
+        return dist[id];
+    }
+
+    /**
+     * @param id actor id
+     * @return the id of the actor it was discovered from, -1 for the center and unreachable actors
+     */
+    public int parent(int id){
+        return parent[id];
+    }
+
+    /**
+     * @param actor actor name
+     * @return names on the shortest path, starting next to the center and ending at actor
+     */
+    public List<String> getPath(String actor){
+        List<String> path = new ArrayList<>();
+        int id = graph.indexOf(actor);
+        if (id < 0){
+            return path;
+        }
+        for (int step : GraphLibrary.getPath(parent, id)){
+            path.add(graph.name(step));
+        }
+        return path;
+    }
+
+    /**
+     * looks up the movies linking an actor to the one it was discovered from
+     * @param id actor id, not the center
+     * @return the shared movie titles
+     */
+    public Set<String> label(int id){
+        return graph.sharedMovies(id, parent[id]);
+    }
+
+    /**
+     * @return a set of the actors that are infinitely far from the center
+     */
+    public Set<String> missingVertices(){
+        return GraphLibrary.missingVertices(graph, dist);
+    }
+
+    /**
+     * groups the reached actors by separation, so each group is built once per center
+     * @return a list whose entry at each separation holds the names at that separation in sorted order
+     */
+    public List<List<String>> buckets(){
+        if (buckets == null){
+            buckets = new ArrayList<>();
+            for (int v = 0; v < graph.numVertices(); v++){
+                if (dist[v] < 0){
+                    continue;
+                }
+                while (buckets.size() <= dist[v]){
+                    buckets.add(new ArrayList<>());
+                }
+                buckets.get(dist[v]).add(graph.name(v));
+            }
+            for (List<String> bucket : buckets){
+                Collections.sort(bucket);
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * @param low lowest separation to include
+     * @param high highest separation to include
+     * @return names of the actors with separation between low and high, sorted by separation then name
+     */
+    public List<String> separatedBetween(int low, int high){
+        List<String> actors = new ArrayList<>();
+        List<List<String>> buckets = buckets();
+        for (int d = Math.max(low, 0); d <= high && d < buckets.size(); d++){
+            actors.addAll(buckets.get(d));
+        }
+        return actors;
+    }
+
+    /**
+     * @return average separation of every connected actor from the center
+     */
+    public double averageSeparation(){
+        // every actor in a bucket is that bucket's separation away, and the center's own bucket adds nothing
+        double total = 0;
+        List<List<String>> buckets = buckets();
+        for (int d = 1; d < buckets.size(); d++){
+            total += (double) d * buckets.get(d).size();
+        }
+        return total / (reached - 1);
+    }
+}
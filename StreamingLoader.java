@@ -0,0 +1,253 @@
+import java.io.*;
+import java.nio.file.NoSuchFileException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Reads the three files at once into every movie's cast as ints, instead of reading them whole into id keyed maps first
+ * The actor and movie files are read on their own threads while the credit file is parsed in batches onto a bounded queue,
+ * and each batch is resolved into actor ranks and movie ids as it comes off the queue once both name tables are in,
+ * with batches that arrive before then kept as raw ids in the same arrays until they can be
+ * Only the two name tables, the batches waiting on the queue and the credits as ints are held along the way;
+ * the co-star edges are paired up from the casts after the last batch, since any movie's cast can still grow until then
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public class StreamingLoader {
+    // about how many credits go in a batch, and how many batches can wait before the parser is held up
+    private static final int BATCH = 8192;
+    private static final int QUEUE = 16;
+
+    // put on the queue after the last batch
+    private static final MappedLoader.Credits END = new MappedLoader.Credits(new int[0], new int[0], 0);
+
+    // loader that maps and parses the files, keeping how long each one took
+    private final MappedLoader loader;
+
+    // tables read from the actor and movie files, null until read
+    private MappedLoader.NameTable actors;
+    private MappedLoader.NameTable movies;
+
+    // files that didn't exist and were read as empty, in the order they were found missing
+    private final List<String> missing = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     *
+     * @param loader loader to read the files with
+     */
+    public StreamingLoader(MappedLoader loader){
+        this.loader = loader;
+    }
+
+    /**
+     * reads the three files at once, with actors that appear in any credit as the vertices, like the id keyed maps give
+     * A file that doesn't exist is read as empty and listed by missing(), so it only leaves out what it would have added
+     * @param actorFile file of actor ids to names
+     * @param movieFile file of movie ids to names
+     * @param actorMovieFile file of movie ids to actor ids
+     * @return the casts of every movie, with actors numbered in name order
+     * @throws IOException if a file that exists can't be read or has a line without numeric ids
+     */
+    public CastTable read(String actorFile, String movieFile, String actorMovieFile) throws IOException {
+        CompletableFuture<MappedLoader.NameTable> actorTable = CompletableFuture.supplyAsync(() -> readNames(actorFile));
+        CompletableFuture<MappedLoader.NameTable> movieTable = CompletableFuture.supplyAsync(() -> readNames(movieFile));
+
+        // the parser always ends the queue, so the resolving side never waits on a parser that has stopped
+        BlockingQueue<MappedLoader.Credits> queue = new ArrayBlockingQueue<>(QUEUE);
+        IOException[] failure = new IOException[1];
+        Thread parser = new Thread(() -> {
+            try{
+                loader.streamCredits(actorMovieFile, BATCH, queue);
+            }
+            catch(NoSuchFileException e){
+                missing.add(e.getMessage());
+            }
+            catch(IOException e){
+                failure[0] = e;
+            }
+            catch(InterruptedException e){
+                // the reading side gave up, so nobody is waiting for the end of the queue
+                return;
+            }
+            try{
+                queue.put(END);
+            }
+            catch(InterruptedException e){
+                // the reading side gave up
+            }
+        }, "credit parser");
+        parser.setDaemon(true);
+        parser.start();
+
+        try{
+            // each batch's raw ids go straight into the credit arrays, and once both name tables are in they're resolved
+            // in place as they arrive, so waiting on the names holds no more than the resolved credits would
+            int[] creditMovies = new int[BATCH];
+            int[] creditActors = new int[BATCH];
+            int received = 0;
+            Resolver resolver = null;
+            for (MappedLoader.Credits batch = queue.take(); batch != END; batch = queue.take()){
+                if (received + batch.size() > creditMovies.length){
+                    int length = Math.max(creditMovies.length * 2, received + batch.size());
+                    creditMovies = Arrays.copyOf(creditMovies, length);
+                    creditActors = Arrays.copyOf(creditActors, length);
+                }
+                for (int i = 0; i < batch.size(); i++){
+                    creditMovies[received] = batch.movie(i);
+                    creditActors[received++] = batch.actor(i);
+                }
+                if (resolver == null && actorTable.isDone() && movieTable.isDone()){
+                    resolver = resolver(actorTable, movieTable);
+                }
+                if (resolver != null){
+                    resolver.resolve(creditMovies, creditActors, received);
+                }
+            }
+            if (failure[0] != null){
+                throw failure[0];
+            }
+            // the credits finished first, so whatever arrived is resolved now the names are in
+            if (resolver == null){
+                resolver = resolver(actorTable, movieTable);
+            }
+            int credits = resolver.resolve(creditMovies, creditActors, received);
+
+            // drops actors without credits from the numbering, which keeps the rest in name order
+            String[] sorted = resolver.sorted;
+            int[] ids = new int[sorted.length];
+            List<String> names = new ArrayList<>();
+            for (int r = 0; r < sorted.length; r++){
+                if (resolver.credited[r]){
+                    ids[r] = names.size();
+                    names.add(sorted[r]);
+                }
+            }
+            for (int i = 0; i < credits; i++){
+                creditActors[i] = ids[creditActors[i]];
+            }
+            return new CastTable(names.toArray(new String[0]), resolver.titles.toArray(new String[0]), creditMovies, creditActors, credits);
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while reading " + actorMovieFile);
+        }
+        finally{
+            // stops the parser if the credits were abandoned partway, and does nothing once it has finished
+            parser.interrupt();
+        }
+    }
+
+    // turns raw credits into actor ranks in name order and movie ids in order of first appearance, packing them at the front
+    private static class Resolver {
+        // every distinct actor name in order, and each name's place in it
+        private final String[] sorted;
+        private final Map<String, Integer> ranks;
+
+        // whether each ranked actor has a credit, since only those become vertices
+        private final boolean[] credited;
+
+        // movie titles numbered as they first show up
+        private final Map<String, Integer> movieIds = new HashMap<>();
+        private final List<String> titles = new ArrayList<>();
+
+        private final MappedLoader.NameTable actors;
+        private final MappedLoader.NameTable movies;
+
+        // next raw credit to resolve, and how many resolved credits are packed at the front
+        private int next;
+        private int packed;
+
+        Resolver(MappedLoader.NameTable actors, MappedLoader.NameTable movies){
+            this.actors = actors;
+            this.movies = movies;
+            ranks = new HashMap<>();
+            for (int i = 0; i < actors.size(); i++){
+                ranks.put(actors.name(i), 0);
+            }
+            sorted = new TreeSet<>(ranks.keySet()).toArray(new String[0]);
+            for (int r = 0; r < sorted.length; r++){
+                ranks.put(sorted[r], r);
+            }
+            credited = new boolean[sorted.length];
+        }
+
+        // resolves the raw credits up to received in place, returning how many resolved credits there are
+        int resolve(int[] creditMovies, int[] creditActors, int received){
+            for (; next < received; next++){
+                String actor = actors.get(creditActors[next]);
+                if (actor == null){
+                    continue;
+                }
+                int rank = ranks.get(actor);
+                // an actor with any credit is a vertex, even if the movie can't be named
+                credited[rank] = true;
+                String movie = movies.get(creditMovies[next]);
+                if (movie == null){
+                    continue;
+                }
+                if (!movieIds.containsKey(movie)){
+                    movieIds.put(movie, titles.size());
+                    titles.add(movie);
+                }
+                creditMovies[packed] = movieIds.get(movie);
+                creditActors[packed++] = rank;
+            }
+            return packed;
+        }
+    }
+
+    // stores the finished name tables and ranks the actors, which every credit's resolution needs
+    private Resolver resolver(CompletableFuture<MappedLoader.NameTable> actorTable, CompletableFuture<MappedLoader.NameTable> movieTable) throws IOException {
+        actors = join(actorTable);
+        movies = join(movieTable);
+        return new Resolver(actors, movies);
+    }
+
+    /**
+     * @return the files found missing so far, each read as empty
+     */
+    public List<String> missing(){
+        return missing;
+    }
+
+    /**
+     * @return the table read from the actor file, null before read or if it couldn't be read
+     */
+    public MappedLoader.NameTable actors(){
+        return actors;
+    }
+
+    /**
+     * @return the table read from the movie file, null before read or if it couldn't be read
+     */
+    public MappedLoader.NameTable movies(){
+        return movies;
+    }
+
+    // reads a name file on a pool thread, carrying a failure out unchecked and a missing file out as an empty table
+    private MappedLoader.NameTable readNames(String file){
+        try{
+            return loader.readNames(file);
+        }
+        catch(NoSuchFileException e){
+            missing.add(e.getMessage());
+            return new MappedLoader.NameTable(new int[0], new String[0], 0);
+        }
+        catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // waits for a name table, rethrowing the exception that stopped it
+    private static MappedLoader.NameTable join(CompletableFuture<MappedLoader.NameTable> table) throws IOException {
+        try{
+            return table.join();
+        }
+        catch(CompletionException e){
+            if (e.getCause() instanceof UncheckedIOException){
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+import java.util.*;
+
+/**
+ * Read only view of a compact graph keeping only the co-star edges backed by a movie released in a range of years
+ * Nothing is copied: every query runs over the graph's own arrays and skips edges whose movies all fall outside the range,
+ * so a path tree over the view answers Bacon numbers using only those years' movies
+ * @author Rebecca Liu and Dylan Lawler, Spring 2021
+ */
+
+public class YearView implements ActorGraph {
+    // graph being viewed and the years of its movies
+    private final CompactGraph graph;
+    private final MovieYears years;
+
+    // range of release years kept, both ends included
+    private final int low;
+    private final int high;
+
+    // indexes over the view, such as its components, dropped along with the view
+    private final GraphIndexes indexes = new GraphIndexes(this);
+
+    /**
+     *
+     * @param graph compact graph to view
+     * @param low earliest release year kept
+     * @param high latest release year kept
+     */
+    public YearView(CompactGraph graph, int low, int high){
+        this.graph = graph;
+        this.years = graph.indexes().years();
+        this.low = low;
+        this.high = high;
+    }
+
+    /**
+     * @return the graph being viewed
+     */
+    public CompactGraph graph(){
+        return graph;
+    }
+
+    /**
+     * @return earliest release year kept
+     */
+    public int low(){
+        return low;
+    }
+
+    /**
+     * @return latest release year kept
+     */
+    public int high(){
+        return high;
+    }
+
+    /**
+     * @param edge slot in the viewed graph's neighbors()
+     * @return whether the edge is in the view
+     */
+    public boolean keeps(int edge){
+        return years.anyBetween(edge, low, high);
+    }
+
+    public int indexOf(String v){
+        return graph.indexOf(v);
+    }
+
+    public String name(int id){
+        return graph.name(id);
+    }
+
+    public int bfs(int source, int[] dist, int[] parent, int[] queue){
+        int[] offsets = graph.offsets();
+        int[] neighbors = graph.neighbors();
+        Arrays.fill(dist, 0, graph.numVertices(), -1);
+        Arrays.fill(parent, 0, graph.numVertices(), -1);
+
+        // the same bfs as the compact graph's, with edges outside the years passed over
+        int head = 0;
+        int tail = 0;
+        long edges = 0;
+        queue[tail++] = source;
+        dist[source] = 0;
+        while (head < tail){
+            int u = queue[head++];
+            edges += offsets[u + 1] - offsets[u];
+            for (int k = offsets[u]; k < offsets[u + 1]; k++){
+                int v = neighbors[k];
+                if (dist[v] < 0 && keeps(k)){
+                    dist[v] = dist[u] + 1;
+                    parent[v] = u;
+                    queue[tail++] = v;
+                }
+            }
+        }
+        Metrics.bfs(tail, edges);
+        return tail;
+    }
+
+    public Set<String> sharedMovies(int u, int v){
+        int edge = graph.edgeIndex(u, v);
+        return edge < 0 ? new HashSet<>() : years.between(edge, low, high);
+    }
+
+    public int[] degrees(){
+        int[] offsets = graph.offsets();
+        int[] degrees = new int[graph.numVertices()];
+        for (int u = 0; u < degrees.length; u++){
+            for (int k = offsets[u]; k < offsets[u + 1]; k++){
+                degrees[u] += keeps(k) ? 1 : 0;
+            }
+        }
+        return degrees;
+    }
+
+    public GraphIndexes indexes(){
+        return indexes;
+    }
+
+    // the co-stars an actor keeps in the view, as names
+    private Iterable<String> row(int u){
+        List<String> row = new ArrayList<>();
+        for (int k = graph.offsets()[u]; k < graph.offsets()[u + 1]; k++){
+            if (keeps(k)){
+                row.add(graph.name(graph.neighbors()[k]));
+            }
+        }
+        return row;
+    }
+
+    public int numVertices(){
+        return graph.numVertices();
+    }
+
+    public int numEdges(){
+        int edges = 0;
+        for (int k = 0; k < graph.numEdges(); k++){
+            edges += keeps(k) ? 1 : 0;
+        }
+        return edges;
+    }
+
+    public Iterable<String> vertices(){
+        return graph.vertices();
+    }
+
+    public boolean hasVertex(String v){
+        return graph.hasVertex(v);
+    }
+
+    public boolean hasEdge(String u, String v){
+        if (!hasVertex(u) || !hasVertex(v)){
+            return false;
+        }
+        int edge = graph.edgeIndex(id(u), id(v));
+        return edge >= 0 && keeps(edge);
+    }
+
+    public Set<String> getLabel(String u, String v){
+        if (!hasEdge(u, v)){
+            return null;
+        }
+        return years.between(graph.edgeIndex(id(u), id(v)), low, high);
+    }
+
+    public int outDegree(String v){
+        int u = id(v);
+        int degree = 0;
+        for (int k = graph.offsets()[u]; k < graph.offsets()[u + 1]; k++){
+            degree += keeps(k) ? 1 : 0;
+        }
+        return degree;
+    }
+
+    // every edge goes both ways, so in and out are the same
+    public int inDegree(String v){
+        return outDegree(v);
+    }
+
+    public Iterable<String> outNeighbors(String v){
+        return row(id(v));
+    }
+
+    public Iterable<String> inNeighbors(String v){
+        return row(id(v));
+    }
+
+    public void insertVertex(String v){
+        throw new UnsupportedOperationException("year views are read only");
+    }
+
+    public void insertDirected(String u, String v, Set<String> e){
+        throw new UnsupportedOperationException("year views are read only");
+    }
+
+    public void insertUndirected(String u, String v, Set<String> e){
+        throw new UnsupportedOperationException("year views are read only");
+    }
+
+    public void removeVertex(String v){
+        throw new UnsupportedOperationException("year views are read only");
+    }
+
+    public void removeDirected(String u, String v){
+        throw new UnsupportedOperationException("year views are read only");
+    }
+
+    public void removeUndirected(String u, String v){
+        throw new UnsupportedOperationException("year views are read only");
+    }
+
+    @Override
+    public String toString(){
+        return "Movies from " + low + " to " + high + " of\n" + graph;
+    }
+}